@@ -1,9 +1,6 @@
 package net.fabricmc.cmdBlockHelper;
 
 import net.fabricmc.api.ClientModInitializer;
-import net.fabricmc.cmdBlockHelper.ide.CmdScreen;
-import net.fabricmc.cmdBlockHelper.ide.MonoTextRenderer;
-import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,8 +10,7 @@ public class CommandBlockHelperMod implements ClientModInitializer {
 	@Override
 	public void onInitializeClient() {
 		LOGGER.info("Command Block Helper mod initialized");
-		// After the client has initiated, create the TextRenderer with the monospace font
-		ClientLifecycleEvents.CLIENT_STARTED.register((client) ->
-				CmdScreen.monoRenderer = MonoTextRenderer.generateTextRenderer());
+		// The monospace font is not built here, the IDE builds it the first time it's needed so players that never
+		// open it don't pay for it. MonoTextRenderer logs how long loading and building it takes
 	}
 }
@@ -5,7 +5,6 @@ import net.fabricmc.api.Environment;
 import net.fabricmc.cmdBlockHelper.mixin.AbstractCommandBlockScreenAccessor;
 import net.fabricmc.cmdBlockHelper.mixin.CommandBlockScreenAccessor;
 import net.minecraft.client.MinecraftClient;
-import net.minecraft.client.font.TextRenderer;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.screen.ingame.AbstractCommandBlockScreen;
 import net.minecraft.client.gui.screen.ingame.CommandBlockScreen;
@@ -18,8 +17,6 @@ import java.util.Objects;
 
 @Environment(EnvType.CLIENT)
 public class CmdScreen extends Screen {
-    public static TextRenderer monoRenderer = null;
-
     public static final int maxCmdLength = 32500;
 
     protected final AbstractCommandBlockScreen parent;
@@ -47,7 +44,7 @@ public class CmdScreen extends Screen {
         ).dimensions(this.width - 80, this.height - 30, 70, 20).build());
 
         // Editor box creation
-        this.editor = new TextEditor(monoRenderer, 10, 20, this.width - 100, this.height - 30);
+        this.editor = new TextEditor(MonoTextRenderer.get(), 10, 20, this.width - 100, this.height - 30);
         // Extract the current command in the command block GUI
         this.text = ((AbstractCommandBlockScreenAccessor)this.parent).getConsoleCommandTextField().getText();
         // TODO: Properly store the unformatted command as an NBT tag or something similar. Classes are recreated every time
@@ -93,14 +90,17 @@ public class CmdScreen extends Screen {
     }
 
     protected void commitAndClose() {
+        // Same as the done button, a command that is too long is never committed
+        if (this.editor.getCommandLength() > maxCmdLength) return;
         this.close();
     }
 
     public boolean keyPressed(int keyCode, int scanCode, int modifiers) {
         // This is done here because we do not want to call the parent function if it happens
         // since there is already functionality for tab and we DO NOT want that functionality to execute
+        // Shift + Tab removes the tab instead
         if (keyCode == 258) {
-               this.editor.addTab();
+               this.editor.indent((modifiers & 1) != 0);
                return true;
         }
         // TODO: Confirmation message "are you sure you want to cancel?" or something
@@ -0,0 +1,29 @@
+package net.fabricmc.cmdBlockHelper.ide;
+
+import net.minecraft.client.font.TextRenderer;
+
+// The editor's font is monospace, so every character is just as wide. That turns going from a column to a position on
+// screen and back into a multiplication or a division, instead of measuring all the text in between
+public class ColumnMetrics {
+    private final float advance;
+
+    public ColumnMetrics(TextRenderer textRenderer) {
+        // Read from the font once. It can have decimals, so it is not rounded here
+        this.advance = textRenderer.getTextHandler().getWidth("0");
+    }
+
+    //***********************************************************
+    //************************* GETTERS *************************
+    //***********************************************************
+
+    // Width of the given amount of columns, rounded up the same way TextRenderer.getWidth does
+    public int getWidth(int columns) {
+        return (int) Math.ceil(columns * this.advance);
+    }
+
+    // How many whole columns fit in the given width
+    public int getColumns(int width) {
+        if (width <= 0) return 0;
+        return (int) (width / this.advance);
+    }
+}
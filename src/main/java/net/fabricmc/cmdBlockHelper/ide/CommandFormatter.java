@@ -0,0 +1,270 @@
+package net.fabricmc.cmdBlockHelper.ide;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Turns the command from the editor into the inline version minecraft understands, and an inline command into the
+// multiline, indented version shown in the editor. Commands are only walked from start to end and every pass writes
+// into its own builder, no regex chains and no inserting or deleting in the middle of a StringBuilder
+class CommandFormatter {
+    private static final Pattern coordsPattern = Pattern.compile(RegularExpressions.coords);
+    private static final int maxLineLength = 60;
+    private static final String specialChars = "{}[]=,";
+    private static final String letters = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    // Characters matched by \s, groups of them become a single space
+    private static final String spaces = " \t\n\u000B\f\r";
+
+    // The strings are read straight from the inline command, where they are found by their spans
+    private final String source;
+    private final int[] strings;
+    private final StringBuilder out;
+    // Strings are put back as soon as both quotes of their placeholder are written
+    private int nextString;
+    private int restoredEnd;
+    // How much longer the output is because of the strings that were put back
+    private int growth;
+
+    private CommandFormatter(String source, int[] strings) {
+        this.source = source;
+        this.strings = strings;
+        this.out = new StringBuilder(source.length() * 2);
+        this.nextString = 0;
+        this.restoredEnd = 0;
+        this.growth = 0;
+    }
+
+    //**********************************************************
+    //************************** CORE **************************
+    //**********************************************************
+
+    static String makeInline(String command) {
+        int length = command.length();
+        StringBuilder out = new StringBuilder(length);
+        int stack = 0;
+        char last = '\0';
+        // Whitespace is only written once the next character shows up, so the one at the end is never written.
+        // The one at the start is dropped right away
+        int spaceStart = -1;
+        // Once a quote is never closed, no quote after it can be closed either
+        boolean stringsClosed = true;
+        int i = 0;
+        while (i < length) {
+            char chr = command.charAt(i);
+            if (Character.isWhitespace(chr)) {
+                if (spaceStart == -1) spaceStart = i;
+                i++;
+                continue;
+            }
+            int stringEnd = chr == '"' && stringsClosed ? StringLiterals.findEnd(command, i) : -1;
+            if (chr == '"' && stringEnd == -1) stringsClosed = false;
+            if (spaceStart != -1 && out.length() > 0) {
+                // Groups of spaces are a single space. Whitespace \s doesn't match is left as it is
+                boolean pendingSpace = false;
+                for (int j = spaceStart; j < i; j++) {
+                    char space = command.charAt(j);
+                    if (spaces.indexOf(space) != -1) {
+                        pendingSpace = true;
+                        continue;
+                    }
+                    if (pendingSpace && keepsSpace(last, space, stack)) out.append(' ');
+                    pendingSpace = false;
+                    out.append(space);
+                    last = space;
+                }
+                if (pendingSpace && keepsSpace(last, chr, stack)) out.append(' ');
+            }
+            spaceStart = -1;
+            // The first character doesn't count for the stack
+            if (out.length() > 0) {
+                if (chr == '{' || chr == '[') stack++;
+                else if (chr == '}' || chr == ']') stack--;
+            }
+            if (stringEnd == -1) {
+                out.append(chr);
+                last = chr;
+                i++;
+                continue;
+            }
+            // Strings are copied as they are, except for the newlines
+            for (int j = i; j <= stringEnd; j++) {
+                char stringChar = command.charAt(j);
+                out.append(stringChar == '\n' ? ' ' : stringChar);
+            }
+            last = '"';
+            i = stringEnd + 1;
+        }
+        return out.toString();
+    }
+
+    private static boolean keepsSpace(char prev, char next, int stack) {
+        // Spaces around scope symbols, commas or equal signs are removed. If it's at the outermost part of the command
+        // (arguments are separated by spaces here) brackets must be stuck to the previous argument, otherwise
+        // minecraft will not like it. THIS MUST NOT HAPPEN FOR NUMBERS. Minecraft formatting is very picky :(
+        if (specialChars.indexOf(prev) == -1 && specialChars.indexOf(next) == -1) return true;
+        return stack == 0 && (letters.indexOf(prev) == -1 || (next != '[' && next != '{'));
+    }
+
+    static String format(String inline) {
+        // Strings are taken out so nothing inside them gets formatted, only their quotes are left
+        int[] strings = StringLiterals.findSpans(inline);
+        String layout = layoutLines(removeStrings(inline, strings));
+        return new CommandFormatter(inline, strings).indent(layout);
+    }
+
+    private static String removeStrings(String command, int[] strings) {
+        StringBuilder skeleton = new StringBuilder(command.length());
+        int copied = 0;
+        for (int i = 0; i < strings.length; i += 2) {
+            skeleton.append(command, copied, strings[i]).append("\"\"");
+            copied = strings[i + 1];
+        }
+        skeleton.append(command, copied, command.length());
+        return skeleton.toString();
+    }
+
+    // Puts scope symbols in their own lines and breaks lines after commas, then adds spaces around equal signs
+    private static String layoutLines(String skeleton) {
+        StringBuilder layout = new StringBuilder(skeleton.length() * 2);
+        int length = skeleton.length();
+        for (int i = 0; i <= length; i++) {
+            char prev = i > 0 ? skeleton.charAt(i - 1) : '\0';
+            char curr = i < length ? skeleton.charAt(i) : '\0';
+            char next = i + 1 < length ? skeleton.charAt(i + 1) : '\0';
+            int newlines = newlinesBetween(prev, curr, next);
+            // Whitespace at the start and end of the command is dropped
+            if (layout.length() > 0) layout.append("\n".repeat(newlines));
+            if (i == length) break;
+            if (curr == '=') layout.append(layout.length() > 0 ? " = " : "= ");
+            else layout.append(curr);
+        }
+        int end = layout.length();
+        while (end > 0 && Character.isWhitespace(layout.charAt(end - 1))) end--;
+        layout.setLength(end);
+        return layout.toString();
+    }
+
+    private static int newlinesBetween(char prev, char curr, char next) {
+        // Scope symbols go in their own line, and commas end the line
+        int newlines = isScope(prev) || prev == ',' || isScope(curr) ? 1 : 0;
+        // Quotes stay attached to the scope they open, so the line is broken before the quote instead
+        if (isQuote(prev) && isOpening(curr)) newlines = 0;
+        if (isQuote(curr) && isOpening(next)) newlines++;
+        // Closing a scope right before a comma or a single quote keeps them in the same line, unless the quote
+        // already got a line break of its own
+        if (isClosing(prev) && newlines == 1 && (curr == ',' || curr == '\'')) newlines = 0;
+        newlines = Math.min(newlines, 1);
+        // Empty scopes get an empty line inside
+        if ((prev == '{' && curr == '}') || (prev == '[' && curr == ']')) newlines = 2;
+        return newlines;
+    }
+
+    private String indent(String layout) {
+        // Coordinates can't be split in two lines. Their positions are only valid until the first line gets indented,
+        // from then on they are no longer used
+        List<int[]> coords = new ArrayList<>();
+        Matcher coordMatcher = coordsPattern.matcher(layout);
+        while (coordMatcher.find()) coords.add(new int[]{coordMatcher.start(), coordMatcher.end()});
+        int nextCoord = 0;
+
+        // Spaces of the indentation that still have to be walked over before the rest of the layout
+        int pendingSpaces = 0;
+        int src = 0;
+        int stack = 0;
+        int lastNewLine = 0;
+        boolean inString = false;
+        while (pendingSpaces > 0 || src < layout.length()) {
+            int pos = this.getPosition();
+            char chr = pendingSpaces > 0 ? ' ' : layout.charAt(src);
+            if (inString) {
+                // Newlines inside a string are removed
+                if (chr == '"') inString = false;
+                if (chr != '\n') this.write(chr);
+                src++;
+                continue;
+            }
+            if (coords != null) {
+                while (nextCoord < coords.size() && coords.get(nextCoord)[0] < pos) nextCoord++;
+                // If it happens to stumble upon a coordinate, simply move past it
+                if (nextCoord < coords.size() && coords.get(nextCoord)[0] == pos) {
+                    int skip = coords.get(nextCoord)[1] - pos;
+                    // There is a chance the coordinates were the last thing in the command
+                    boolean overSkipped = skip >= pendingSpaces + layout.length() - src;
+                    for (int i = 0; i < skip && (pendingSpaces > 0 || src < layout.length()); i++) {
+                        if (pendingSpaces > 0) {
+                            pendingSpaces--;
+                            this.write(' ');
+                        }
+                        else this.write(layout.charAt(src++));
+                    }
+                    if (overSkipped) break;
+                    pos = this.getPosition();
+                    chr = pendingSpaces > 0 ? ' ' : layout.charAt(src);
+                }
+            }
+            if (pendingSpaces > 0) pendingSpaces--;
+            else src++;
+            this.write(chr);
+
+            if (chr == '"') inString = true;
+            else if (chr == '{' || chr == '[') stack++;
+            else if (chr == '\n') {
+                lastNewLine = pos;
+                // Reduce the scope before closing brackets so that the closing and opening brackets are aligned
+                char nextChar = src < layout.length() ? layout.charAt(src) : '\0';
+                if (nextChar == ']' || nextChar == '}') stack--;
+                if (stack > 0) {
+                    pendingSpaces += stack * TextFieldLine.tabLength;
+                    coords = null;
+                }
+            }
+            // Lines that get too long are broken at the next space
+            if (chr == ' ' && pos - lastNewLine > maxLineLength) {
+                this.write('\n');
+                lastNewLine = pos + 1;
+                if (stack > 0) {
+                    pendingSpaces += stack * TextFieldLine.tabLength;
+                    coords = null;
+                }
+            }
+        }
+        return this.out.toString();
+    }
+
+    private void write(char chr) {
+        // The second quote of a placeholder is replaced, together with the first one, by the string that was there
+        int last = this.out.length() - 1;
+        if (chr == '"' && last >= this.restoredEnd && this.out.charAt(last) == '"' && this.nextString < this.strings.length) {
+            int start = this.strings[this.nextString++];
+            int end = this.strings[this.nextString++];
+            this.out.setLength(last);
+            this.out.append(this.source, start, end);
+            this.restoredEnd = this.out.length();
+            this.growth += end - start - 2;
+            return;
+        }
+        this.out.append(chr);
+    }
+
+    // Position in the command as if the strings were still placeholders, which is what lines are measured with
+    private int getPosition() {
+        return this.out.length() - this.growth;
+    }
+
+    private static boolean isScope(char chr) {
+        return isOpening(chr) || isClosing(chr);
+    }
+
+    private static boolean isOpening(char chr) {
+        return chr == '{' || chr == '[';
+    }
+
+    private static boolean isClosing(char chr) {
+        return chr == '}' || chr == ']';
+    }
+
+    private static boolean isQuote(char chr) {
+        return chr == '\'' || chr == '"';
+    }
+}
@@ -0,0 +1,153 @@
+package net.fabricmc.cmdBlockHelper.ide;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps track of how long the command will be once it's made inline, without actually making it inline on every edit.
+// Each line knows how many characters it adds to the inline command given the state the lines above leave the
+// minifier in, so only the lines that changed (and the ones after them whose state changed too) are measured again.
+// The rules here are the ones makeInline follows, both must always give the same length
+public class InlineLengthTracker {
+    private static final String specialChars = "{}[]=,";
+    private static final String letters = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    // Characters matched by \s, which is what makeInline collapses
+    private static final String spaces = " \t\n\u000B\f\r";
+
+    // Everything the minifier remembers from one line to the next
+    private record State(boolean inString, boolean escaped, boolean started, char last, int stack) {
+        static final State INITIAL = new State(false, false, false, '\0', 0);
+    }
+
+    // The column of the last quote in the line that opened a string, or -1
+    private record Line(String text, State entry, State exit, int length, int lastOpen) {}
+
+    private final List<Line> lines;
+    // Sum of the lengths of every line
+    private int length;
+
+    public InlineLengthTracker() {
+        this.lines = new ArrayList<>();
+        this.length = 0;
+    }
+
+    //**********************************************************
+    //************************** CORE **************************
+    //**********************************************************
+
+    public int update(List<String> newLines) {
+        int oldCount = this.lines.size();
+        int newCount = newLines.size();
+        // Only the lines between the unchanged start and end have to be measured for sure
+        int first = 0;
+        while (first < oldCount && first < newCount && this.lines.get(first).text().equals(newLines.get(first)))
+            first++;
+        int suffix = 0;
+        while (suffix < oldCount - first && suffix < newCount - first &&
+                this.lines.get(oldCount - 1 - suffix).text().equals(newLines.get(newCount - 1 - suffix)))
+            suffix++;
+        List<Line> changed = this.lines.subList(first, oldCount - suffix);
+        for (Line line : changed) this.length -= line.length();
+        changed.clear();
+
+        State state = first == 0 ? State.INITIAL : this.lines.get(first - 1).exit();
+        for (int i = first; i < newCount; i++) {
+            if (i < newCount - suffix) {
+                Line line = this.measure(newLines.get(i), state, Integer.MAX_VALUE);
+                this.lines.add(i, line);
+                this.length += line.length();
+                state = line.exit();
+                continue;
+            }
+            // Past the edit, lines are only measured again until one starts like it did before
+            Line old = this.lines.get(i);
+            if (old.entry().equals(state)) break;
+            Line line = this.measure(old.text(), state, Integer.MAX_VALUE);
+            this.lines.set(i, line);
+            this.length += line.length() - old.length();
+            state = line.exit();
+        }
+        return this.getLength();
+    }
+
+    private Line measure(String text, State entry, int plainFrom) {
+        boolean inString = entry.inString();
+        boolean escaped = entry.escaped();
+        boolean started = entry.started();
+        char last = entry.last();
+        int stack = entry.stack();
+        int length = 0;
+        int lastOpen = -1;
+        // The newline before the line is a space by the time it gets minified
+        boolean pendingSpace = true;
+        if (inString) {
+            escaped = false;
+            length++;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char chr = text.charAt(i);
+            // Strings are copied as they are
+            if (inString) {
+                length++;
+                if (escaped) escaped = false;
+                else if (chr == '\\') escaped = true;
+                else if (chr == '"') {
+                    inString = false;
+                    last = chr;
+                    pendingSpace = false;
+                }
+                continue;
+            }
+            if (spaces.indexOf(chr) != -1) {
+                pendingSpace = true;
+                continue;
+            }
+            // Any group of spaces is one space at most, and it's not there at all at the start of the command
+            if (pendingSpace && started && keepsSpace(last, chr, stack)) length++;
+            pendingSpace = false;
+            length++;
+            // makeInline doesn't count the first character in the stack
+            if (started) {
+                if (chr == '{' || chr == '[') stack++;
+                else if (chr == '}' || chr == ']') stack--;
+            }
+            started = true;
+            last = chr;
+            if (chr == '"' && i < plainFrom) {
+                inString = true;
+                lastOpen = i;
+            }
+        }
+        return new Line(text, entry, new State(inString, escaped, started, last, stack), length, lastOpen);
+    }
+
+    private static boolean keepsSpace(char prev, char next, int stack) {
+        // Same condition makeInline uses to remove spaces, the other way around
+        if (specialChars.indexOf(prev) == -1 && specialChars.indexOf(next) == -1) return true;
+        return stack == 0 && (letters.indexOf(prev) == -1 || (next != '[' && next != '{'));
+    }
+
+    //***********************************************************
+    //************************* GETTERS *************************
+    //***********************************************************
+
+    private int getLength() {
+        State end = this.lines.isEmpty() ? State.INITIAL : this.lines.get(this.lines.size() - 1).exit();
+        if (!end.inString()) return this.length;
+        // A string that is never closed is not a string for makeInline, so from its opening quote onwards the quotes
+        // are just characters. It only happens while the string is being typed, so it's measured on the spot
+        int open = this.lines.size() - 1;
+        while (this.lines.get(open).lastOpen() == -1) open--;
+        int length = this.length;
+        for (int i = open; i < this.lines.size(); i++) length -= this.lines.get(i).length();
+        Line line = this.lines.get(open);
+        line = this.measure(line.text(), line.entry(), line.lastOpen());
+        length += line.length();
+        State state = line.exit();
+        for (int i = open + 1; i < this.lines.size(); i++) {
+            line = this.measure(this.lines.get(i).text(), state, 0);
+            length += line.length();
+            state = line.exit();
+        }
+        return length;
+    }
+}
@@ -1,58 +1,82 @@
 package net.fabricmc.cmdBlockHelper.ide;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import net.fabricmc.cmdBlockHelper.CommandBlockHelperMod;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.font.Font;
 import net.minecraft.client.font.FontStorage;
 import net.minecraft.client.font.FontType;
 import net.minecraft.client.font.TextRenderer;
 import net.minecraft.util.Identifier;
-import net.minecraft.util.JsonHelper;
+import net.minecraft.util.Util;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class MonoTextRenderer {
     private static final String id = "monotextrenderer";
-    // Creates a textRenderer that will use the fixedsys font, which is monospace
+    // Nothing is built when the game starts. The font file starts loading in the background once a command block
+    // screen shows up, and the TextRenderer is made the first time the IDE asks for it
+    private static CompletableFuture<List<Font>> fonts = null;
+    private static TextRenderer renderer = null;
+
+    // Gives the TextRenderer that uses the fixedsys font, which is monospace
     // The IDE needs monospace so that the columns are vertially aligned
     // How in the world is minecraft's font not monospace???
-    public static TextRenderer generateTextRenderer() {
+    public static TextRenderer get() {
+        if (renderer == null) {
+            // If nothing warmed it up, the font is loaded right here
+            if (fonts == null) fonts = CompletableFuture.completedFuture(loadFonts());
+            build(fonts.join());
+        }
+        return renderer;
+    }
+
+    // Starts loading the font off the client thread, so opening the IDE doesn't have to wait for it
+    public static void prewarm() {
+        if (fonts != null) return;
+        fonts = CompletableFuture.supplyAsync(MonoTextRenderer::loadFonts, Util.getMainWorkerExecutor());
+        // The font storage creates textures, which can only happen in the client thread
+        fonts.thenAcceptAsync(MonoTextRenderer::build, MinecraftClient.getInstance());
+    }
+
+    private static List<Font> loadFonts() {
+        long start = Util.getMeasuringTimeMs();
         MinecraftClient mc = MinecraftClient.getInstance();
         List<Font> list = new ArrayList<>();
         // TODO: This probably should not be hardcoded...
-        String json = """
-                {
-                  "providers": [
-                    {
-                      "type": "ttf",
-                      "file": "minecraft:fixedsys.ttf",
-                      "shift": [0, 1],
-                      "size": 12.0,
-                      "oversample": 16.0
-                    }
-                  ]
-                }""";
-        // Json black magic. Source code: https://www.reddit.com/r/fabricmc/comments/qfzixs/how_can_i_load_and_draw_ttf_fonts/
-        JsonArray jsonArray = JsonHelper.getArray(JsonHelper.deserialize(new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create(), json, JsonObject.class), "providers");
-        for(int i = jsonArray.size() - 1; i >= 0; --i) {
-            JsonObject jsonObject = JsonHelper.asObject(jsonArray.get(i), "providers[" + i + "]");
-            try {
-                String stringType = JsonHelper.getString(jsonObject, "type");
-                FontType fontType = FontType.byId(stringType);
-                Font font = fontType.createLoader(jsonObject).load(mc.getResourceManager());
-                if (font != null)
-                    list.add(font);
-            } catch (RuntimeException e) {
-                e.printStackTrace();
-            }
+        // Same as a font definition json, but built directly instead of parsing one
+        JsonObject provider = new JsonObject();
+        provider.addProperty("type", "ttf");
+        provider.addProperty("file", "minecraft:fixedsys.ttf");
+        JsonArray shift = new JsonArray();
+        shift.add(0);
+        shift.add(1);
+        provider.add("shift", shift);
+        provider.addProperty("size", 12.0);
+        provider.addProperty("oversample", 16.0);
+        try {
+            Font font = FontType.TTF.createLoader(provider).load(mc.getResourceManager());
+            if (font != null)
+                list.add(font);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
         }
+        CommandBlockHelperMod.LOGGER.info("Monospace font loaded in {} ms", Util.getMeasuringTimeMs() - start);
+        return list;
+    }
+
+    private static void build(List<Font> list) {
+        // Whoever gets here first builds it
+        if (renderer != null) return;
+        long start = Util.getMeasuringTimeMs();
+        MinecraftClient mc = MinecraftClient.getInstance();
         // Not sure exactly what this id is, but it seems that it can be anything
         FontStorage storage = new FontStorage(mc.getTextureManager(), new Identifier(id));
         storage.setFonts(list);
-        return new TextRenderer((id) -> storage, false);
+        renderer = new TextRenderer((id) -> storage, false);
+        CommandBlockHelperMod.LOGGER.info("Monospace text renderer built in {} ms", Util.getMeasuringTimeMs() - start);
     }
-
 }
@@ -2,5 +2,4 @@ package net.fabricmc.cmdBlockHelper.ide;
 
 public class RegularExpressions {
     public static String coords = "(~-?[0-9]+(\\.[0-9]+)?|\\^-?[0-9]+(\\.[0-9]+)?|~|\\^|-?[0-9]+(\\.[0-9]+)?) (~-?[0-9]+(\\.[0-9]+)?|\\^-?[0-9]+(\\.[0-9]+)?|~|\\^|-?[0-9]+(\\.[0-9]+)?) (~-?[0-9]+(\\.[0-9]+)?|\\^-?[0-9]+(\\.[0-9]+)?|~|\\^|-?[0-9]+(\\.[0-9]+)?)";
-    public static String strings = "([\"])(?:(?=(\\\\?))\\2.)*?\\1";
 }
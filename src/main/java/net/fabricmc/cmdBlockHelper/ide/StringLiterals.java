@@ -0,0 +1,51 @@
+package net.fabricmc.cmdBlockHelper.ide;
+
+import java.util.Arrays;
+
+// Finds the string literals of a command. A literal starts at a double quote and ends at the next double quote that
+// is not escaped with a backslash. Every character is looked at once, so long JSON texts cost the same as any other
+// part of the command. A quote that is never closed is not a literal, and neither is any quote after it, since from
+// the unclosed quote's point of view all of them are escaped
+class StringLiterals {
+    private StringLiterals() {}
+
+    // Offset of the quote that closes the literal opened at start, or -1 if it is never closed
+    static int findEnd(CharSequence text, int start) {
+        int length = text.length();
+        for (int i = start + 1; i < length; i++) {
+            char chr = text.charAt(i);
+            // Escaped characters never close the literal
+            if (chr == '\\') i++;
+            else if (chr == '"') return i;
+        }
+        return -1;
+    }
+
+    // Start and end (exclusive, so including both quotes) of every literal, one pair after the other
+    static int[] findSpans(CharSequence text) {
+        int[] spans = new int[8];
+        int count = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) != '"') continue;
+            int end = findEnd(text, i);
+            if (end == -1) break;
+            if (count == spans.length) spans = Arrays.copyOf(spans, count * 2);
+            spans[count++] = i;
+            spans[count++] = end + 1;
+            i = end;
+        }
+        return Arrays.copyOf(spans, count);
+    }
+
+    // Whether the text ends inside a literal, that is, some quote in it is never closed
+    static boolean isOpen(CharSequence text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) != '"') continue;
+            i = findEnd(text, i);
+            if (i == -1) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,139 @@
+package net.fabricmc.cmdBlockHelper.ide;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The text of the editor, stored as one immutable String per line. Lines that are not edited keep their String
+// forever, so the rest of the mod can tell which lines changed just by comparing references.
+// The scope depth each line starts at is cached, edits only drop the depths after the edited line
+public class TextBuffer {
+    // Gets told about every change before it happens to be applied, with the lines that were there and the new ones
+    public interface ChangeListener {
+        void linesReplaced(int line, List<String> removed, List<String> inserted);
+    }
+
+    private final List<String> lines;
+    // Length of every line plus its newline, kept up to date with every edit
+    private int length;
+    // How many scopes are open at the start of every line. Only the first depthsValid of them are up to date
+    private int[] depths;
+    private int depthsValid;
+    // The whole text is only rebuilt when asked for after an edit
+    private String text;
+    private ChangeListener listener;
+
+    public TextBuffer() {
+        this.lines = new ArrayList<>(List.of(""));
+        this.length = 1;
+        this.depths = new int[16];
+        this.depthsValid = 1;
+        this.text = null;
+        this.listener = null;
+    }
+
+    //**********************************************************
+    //************************** CORE **************************
+    //**********************************************************
+
+    public void setLine(int line, String text) {
+        String old = this.lines.get(line);
+        if (old == text) return;
+        if (this.listener != null) this.listener.linesReplaced(line, List.of(old), List.of(text));
+        this.lines.set(line, text);
+        this.text = null;
+        this.length += text.length() - old.length();
+        // The lines below only start somewhere else if this line opens or closes a different number of scopes
+        if (line + 1 < this.depthsValid && getScopeChange(old) != getScopeChange(text)) this.invalidateDepths(line);
+    }
+
+    public void removeLine(int line) {
+        if (this.listener != null) this.listener.linesReplaced(line, List.of(this.lines.get(line)), List.of());
+        String removed = this.lines.remove(line);
+        this.text = null;
+        this.length -= removed.length() + 1;
+        this.invalidateDepths(line);
+    }
+
+    // Replaces the lines [from, to) with the given ones
+    public void replaceLines(int from, int to, List<String> newLines) {
+        List<String> replaced = this.lines.subList(from, to);
+        if (this.listener != null) this.listener.linesReplaced(from, List.copyOf(replaced), List.copyOf(newLines));
+        for (String line : replaced) this.length -= line.length() + 1;
+        for (String line : newLines) this.length += line.length() + 1;
+        replaced.clear();
+        this.lines.addAll(from, newLines);
+        this.text = null;
+        this.invalidateDepths(from);
+    }
+
+    public void setText(List<String> newLines) {
+        this.replaceLines(0, this.lines.size(), newLines);
+    }
+
+    // Depths are kept up to the given line, which starts where it did no matter what happened after it
+    private void invalidateDepths(int line) {
+        this.depthsValid = Math.min(this.depthsValid, line + 1);
+    }
+
+    // How many scopes the text opens minus how many it closes
+    static int getScopeChange(String text) {
+        int change = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char chr = text.charAt(i);
+            if (chr == '[' || chr == '{') change++;
+            else if (chr == ']' || chr == '}') change--;
+        }
+        return change;
+    }
+
+    //***********************************************************
+    //************************* GETTERS *************************
+    //***********************************************************
+
+    public int getLineCount() {
+        return this.lines.size();
+    }
+
+    public String getLine(int line) {
+        return this.lines.get(line);
+    }
+
+    // Copy of the current lines, which won't change no matter what happens to the buffer afterwards
+    public List<String> getLines() {
+        return List.copyOf(this.lines);
+    }
+
+    // Every line followed by a newline, the same format the command is stored in
+    public String getText() {
+        if (this.text == null) {
+            StringBuilder builder = new StringBuilder(this.getLength());
+            for (String line : this.lines) builder.append(line).append('\n');
+            this.text = builder.toString();
+        }
+        return this.text;
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    // Scopes opened and not closed by the lines above the given one. Depths missing since the last edit are
+    // worked out from the last one that is still known, which is usually the line right above
+    public int getScopeDepth(int line) {
+        if (this.depths.length <= line) this.depths = Arrays.copyOf(this.depths, Math.max(line + 1, this.depths.length * 2));
+        for (int i = this.depthsValid; i <= line; i++) {
+            this.depths[i] = this.depths[i - 1] + getScopeChange(this.lines.get(i - 1));
+        }
+        this.depthsValid = Math.max(this.depthsValid, line + 1);
+        return this.depths[line];
+    }
+
+    //***********************************************************
+    //************************* SETTERS *************************
+    //***********************************************************
+
+    public void setChangeListener(ChangeListener listener) {
+        this.listener = listener;
+    }
+}
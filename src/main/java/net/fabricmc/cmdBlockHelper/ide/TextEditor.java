@@ -1,7 +1,9 @@
 package net.fabricmc.cmdBlockHelper.ide;
 
 import net.fabricmc.cmdBlockHelper.ide.intellisense.CommandBlockIntellisense;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.gui.DrawableHelper;
 import net.minecraft.client.gui.Element;
 import net.minecraft.client.gui.Selectable;
 import net.minecraft.client.gui.screen.narration.NarrationMessageBuilder;
@@ -9,21 +11,19 @@ import net.minecraft.client.gui.widget.TextFieldWidget;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.text.OrderedText;
 import net.minecraft.text.Text;
+import net.minecraft.util.Util;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Stack;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-record EditorSnapshot(int cursor, int line, String text) {
-}
 
 public class TextEditor implements Element, Selectable {
     final static int lineHeight = 13;
     final static int maxUndos = 100;
     final static int scrollMult = 2;
+    // Pastes longer than this are formatted into lines unless they land inside a string. Shorter ones go in as they
+    // are, and if they have no newlines the line itself takes them
+    final static int bulkPasteLength = 256;
 
     private enum Directions{
         UP,
@@ -32,90 +32,116 @@ public class TextEditor implements Element, Selectable {
         LEFT
     }
     private final TextFieldWidget background;
-    private final List<TextFieldLine> lines;
+    // Only the visible lines have a widget. Row i shows the line boundShift + i, for the first boundCount rows
+    private final List<TextFieldLine> rows;
+    private int boundShift;
+    private int boundCount;
+    // Cursor of the focused line while it is scrolled out of view and has no row
+    private int hiddenCursor;
+    // Last known position of the pointer, rows can only tell if they are hovered while rendering
+    private double mouseY;
     private final int x, y;
     private int width;
     private int height;
     private final TextRenderer textRenderer;
+    // Turns columns into pixels and back for every line, the font is monospace
+    private final ColumnMetrics metrics;
     private int focusedLine;
+    // Line where a Shift + Up/Down selection started, the focused line is the other end. -1 if nothing is selected
+    private int selectionAnchor;
     private int maxLines;
     private int lineShift;
     private int cursorShift;
-    private StringBuilder fullText;
-    private final Stack<EditorSnapshot> undos;
-    private final Stack<EditorSnapshot> redos;
-    private boolean wasThereUndoUpdate;
+    // The text of every line lives here, the line widgets just edit it
+    private final TextBuffer buffer;
+    private final UndoHistory history;
     private int lastKey;
-    private int charCount;
+    private final CommandBlockIntellisense intellisense;
+    // Measures the inline command from the lines that changed, always in step with the buffer
+    private final InlineLengthTracker lengthTracker;
+    private int commandLength;
+    // Edits only mark the lines as dirty, the intellisense is refreshed once right before the next frame is drawn
+    private boolean linesDirty;
+    private boolean textDirty;
 
     public TextEditor(TextRenderer textRenderer, int x, int y, int width, int height)
     {
-        this.lines = new ArrayList<>();
+        this.rows = new ArrayList<>();
         this.x = x;
         this.y = y;
         this.width = width;
         this.height = height;
         this.textRenderer = textRenderer;
+        this.metrics = new ColumnMetrics(textRenderer);
         this.background = new TextFieldWidget(textRenderer, x, y, width, height, Text.literal(""));
         this.background.setEditable(false);
         this.background.setText("");
         this.focusedLine = -1;
+        this.selectionAnchor = -1;
         this.maxLines = Math.floorDiv(height - 10, lineHeight);
         this.lineShift = 0;
         this.cursorShift = 0;
-        this.undos = new Stack<>();
-        this.redos = new Stack<>();
-        this.wasThereUndoUpdate = false;
         this.lastKey = -1;
-        this.fullText = new StringBuilder();
-        this.charCount = 0;
-
-        CommandBlockIntellisense.resetInstance("");
+        this.buffer = new TextBuffer();
+        this.history = new UndoHistory(this.buffer, maxUndos);
+        this.boundShift = 0;
+        this.boundCount = 0;
+        this.hiddenCursor = 0;
+        this.mouseY = -1;
+        this.linesDirty = false;
+        this.textDirty = false;
+        this.createRows();
+
+        // Lexing runs on the worker threads so big edits don't stall the frame. The char counter stays on this thread,
+        // it only measures the lines that changed and the length it gives must match the text that gets committed
+        this.intellisense = new CommandBlockIntellisense("", Util.getMainWorkerExecutor());
+        this.lengthTracker = new InlineLengthTracker();
+        this.commandLength = this.lengthTracker.update(this.buffer.getLines());
     }
 
     @Override
     public SelectionType getType() {
-        // The highest returned type by a line will be the one returned: FOCUSED > HOVERED > NONE
-        SelectionType type = SelectionType.NONE;
-        for (TextFieldLine line : lines){
-            SelectionType tmpType = line.getType();
-            if (type == SelectionType.NONE) type = tmpType;
-            else if (tmpType == SelectionType.FOCUSED) return tmpType;
-        }
-        return type;
+        // The highest type of a line will be the one returned: FOCUSED > HOVERED > NONE. Only the focused line can be
+        // focused and only the one under the pointer can be hovered, so there is no need to ask the rest
+        TextFieldLine focusedRow = this.getFocusedRow();
+        if (focusedRow != null && focusedRow.getType() == SelectionType.FOCUSED) return SelectionType.FOCUSED;
+        TextFieldLine hoveredRow = this.getRowAt(this.mouseY);
+        return hoveredRow != null ? hoveredRow.getType() : SelectionType.NONE;
     }
 
     @Override
     public void appendNarrations(NarrationMessageBuilder builder) {
-        for (TextFieldLine line : lines){
-            line.appendNarrations(builder);
-        }
+        // Narrate the line being edited, or the one under the pointer if none is
+        TextFieldLine row = this.getFocusedRow();
+        if (row == null) row = this.getRowAt(this.mouseY);
+        if (row != null) row.appendNarrations(builder);
     }
 
     @Override
     public void mouseMoved(double mouseX, double mouseY) {
-        for (TextFieldLine line : lines){
-            line.mouseMoved(mouseX, mouseY);
-        }
+        this.mouseY = mouseY;
+        TextFieldLine row = this.getRowAt(mouseY);
+        if (row != null) row.mouseMoved(mouseX, mouseY);
     }
 
     @Override
     public boolean mouseClicked(double mouseX, double mouseY, int button) {
-        boolean ret = false;
-        int i = 0;
-        for (TextFieldLine line : lines){
-            boolean lineRet = line.mouseClicked(mouseX, mouseY, button);
-            if (lineRet){
-                // The line that actually was clicked will return true, thus store its index
-                this.setFocusedLine(i);
-            }
-            ret = ret || lineRet;
-            i++;
+        this.selectionAnchor = -1;
+        this.mouseY = mouseY;
+        // Only the line under the pointer can take the click. The focused one has to hear about it too, so it knows
+        // it lost the focus
+        int row = this.getRowIndexAt(mouseY);
+        TextFieldLine clickedRow = row != -1 ? this.rows.get(row) : null;
+        TextFieldLine focusedRow = this.getFocusedRow();
+        if (focusedRow != null && focusedRow != clickedRow) focusedRow.mouseClicked(mouseX, mouseY, button);
+        if (clickedRow != null && clickedRow.mouseClicked(mouseX, mouseY, button)){
+            // The line that actually was clicked will return true, thus store its index
+            this.setFocusedLine(this.boundShift + row);
         }
         // In case the user clicks below the last line, the last line will be focused
-        TextFieldLine lastLine = this.lines.get(Math.min(this.lines.size(),this.maxLines + this.lineShift) - 1);
-        if (mouseY > lastLine.getY() + lastLine.getHeight()){
-            this.jumpTo(this.lines.size() - 1, -1);
+        TextFieldLine lastLine = this.boundCount > 0 ? this.rows.get(this.boundCount - 1) : null;
+        if (lastLine != null && mouseY > lastLine.getY() + lastLine.getHeight()){
+            this.jumpTo(this.buffer.getLineCount() - 1, -1);
         }
         //Always update the lines in case of
         this.updateLines(false);
@@ -124,22 +150,15 @@ public class TextEditor implements Element, Selectable {
 
     @Override
     public boolean mouseReleased(double mouseX, double mouseY, int button) {
-        boolean ret = false;
-        for (TextFieldLine line : lines){
-            boolean lineRet = line.mouseReleased(mouseX, mouseY, button);
-            ret = ret || lineRet;
-        }
-        return ret;
+        // Releasing and dragging belong to the line that got clicked, which is the focused one by now
+        TextFieldLine row = this.getPointerRow(mouseY);
+        return row != null && row.mouseReleased(mouseX, mouseY, button);
     }
 
     @Override
     public boolean mouseDragged(double mouseX, double mouseY, int button, double deltaX, double deltaY) {
-        boolean ret = false;
-        for (TextFieldLine line : lines){
-            boolean lineRet = line.mouseDragged(mouseX, mouseY, button, deltaX, deltaY);
-            ret = ret || lineRet;
-        }
-        return ret;
+        TextFieldLine row = this.getPointerRow(mouseY);
+        return row != null && row.mouseDragged(mouseX, mouseY, button, deltaX, deltaY);
     }
 
     @Override
@@ -151,6 +170,12 @@ public class TextEditor implements Element, Selectable {
     }
 
     private boolean processKeys(int keyCode, int scanCode, int modifiers){
+        // Shift + Up/Down selects whole lines, any other key drops the selection. Modifier keys alone don't count,
+        // otherwise pressing Shift for Shift + Tab would lose it
+        if ((keyCode == 265 || keyCode == 264) && (modifiers & 1) != 0){
+            if (this.selectionAnchor == -1) this.selectionAnchor = focusedLine;
+        }
+        else if (keyCode < 340 || keyCode > 347) this.selectionAnchor = -1;
         if (keyCode == 90 && modifiers == 2){ // Ctrl + Z
             this.popUndo();
             return true;
@@ -159,17 +184,22 @@ public class TextEditor implements Element, Selectable {
             this.popRedo();
             return true;
         }
-        if (focusedLine < 0 || focusedLine > this.lines.size() - 1) return false;
+        if (focusedLine < 0 || focusedLine > this.buffer.getLineCount() - 1) return false;
+        this.revealFocusedLine();
+        if (keyCode == 86 && modifiers == 2){ // Ctrl + V
+            if (this.processPaste(MinecraftClient.getInstance().keyboard.getClipboard())) return true;
+        }
         if (keyCode == 257) { //Intro
-            this.saveUndoSnapshot(false);
+            this.history.split();
+            lastKey = 257;
             this.processIntro();
             return true;
         }
         if (keyCode == 259) { //Backspace
-            // Only save an undo snapshot if the last key was not Delete or Backspace
+            // Only start a new undo step if the last key was not Delete or Backspace
             if (lastKey != 259)
             {
-                this.saveUndoSnapshot(false);
+                this.history.split();
                 lastKey = 259;
             }
             // This function will only return false if it removed a newline,
@@ -180,7 +210,7 @@ public class TextEditor implements Element, Selectable {
         if (keyCode == 261){ //Delete
             if (lastKey != 259)
             {
-                this.saveUndoSnapshot(false);
+                this.history.split();
                 lastKey = 259;
             }
             if (this.ProcessBackslash(true)) return true;
@@ -199,7 +229,9 @@ public class TextEditor implements Element, Selectable {
         if (keyCode == 262){
             if (this.processHorizontalArrows(Directions.RIGHT)) return true;
         }
-        return lines.get(focusedLine).keyPressed(keyCode, scanCode, modifiers);
+        boolean ret = this.getFocusedRow().keyPressed(keyCode, scanCode, modifiers);
+        this.syncFocusedRow();
+        return ret;
     }
 
     @Override
@@ -212,31 +244,33 @@ public class TextEditor implements Element, Selectable {
 
     @Override
     public boolean keyReleased(int keyCode, int scanCode, int modifiers) {
-        if (focusedLine < 0 || focusedLine > this.lines.size() - 1) return false;
-        return lines.get(focusedLine).keyReleased(keyCode, scanCode, modifiers);
+        TextFieldLine row = this.getFocusedRow();
+        if (row == null) return false;
+        return row.keyReleased(keyCode, scanCode, modifiers);
     }
 
     @Override
     public boolean charTyped(char chr, int modifiers) {
-        if (focusedLine < 0 || focusedLine > this.lines.size() - 1) return false;
-        // Any modification after undoing or redoing something must trigger an undo save
-        if (this.wasThereUndoUpdate) {
-            this.saveUndoSnapshot(false);
-            this.wasThereUndoUpdate = false;
-        }
-        TextFieldLine line = lines.get(focusedLine);
+        if (focusedLine < 0 || focusedLine > this.buffer.getLineCount() - 1) return false;
+        this.revealFocusedLine();
+        this.selectionAnchor = -1;
+        // Typing after deleting, a newline or an undo starts a new undo step, and so does every new word
+        if (lastKey == -1 || lastKey == 257 || lastKey == 259 || (chr == ' ' && lastKey != ' '))
+            this.history.split();
+        TextFieldLine line = this.getFocusedRow();
         int initLength = line.getText().length();
         // Process the class handler
         boolean ret = line.charTyped(chr, modifiers);
+        this.syncFocusedRow();
         String text = line.getText();
         // If a character was inserted it must check if the user opened a scope and close it automatically if true
         if (initLength < text.length()){
             int cursor = line.getCursor();
             if (text.charAt(cursor - 1) == '[') {
-                line.setText(text.substring(0, cursor) + ']' + text.substring(cursor), cursorShift);
+                this.setLineText(focusedLine, text.substring(0, cursor) + ']' + text.substring(cursor));
                 this.jumpTo(cursor);
             } else if (text.charAt(cursor - 1) == '{') {
-                line.setText(text.substring(0, cursor) + '}' + text.substring(cursor), cursorShift);
+                this.setLineText(focusedLine, text.substring(0, cursor) + '}' + text.substring(cursor));
                 this.jumpTo(cursor);
             }
         }
@@ -265,13 +299,20 @@ public class TextEditor implements Element, Selectable {
     //**********************************************************
 
     public void render(MatrixStack matrices, int mouseX, int mouseY, float delt){
+        // Whatever happened since the last frame is refreshed in one go
+        this.flushLines();
         background.render(matrices, mouseX, mouseY, delt);
-        // Only render from the first visible line to the last.
-        // *lineshift* acts as a pointer to the first visible line
-        // *maxLines* contains the number of lines that fit in the background box
-        for (int i = this.lineShift; i < this.lines.size() && i < this.maxLines + this.lineShift; i++){
-            CommandBlockIntellisense.getInstance().setCurrentLine(i);
-            this.lines.get(i).render(matrices, mouseX, mouseY, delt);
+        // Selected lines get highlighted behind their text. 1090519039 = translucent white
+        if (this.selectionAnchor != -1){
+            int last = Math.min(this.getLastSelectedLine(), this.boundShift + this.boundCount - 1);
+            for (int line = Math.max(this.getFirstSelectedLine(), this.boundShift); line <= last; line++){
+                TextFieldLine row = this.getRow(line);
+                DrawableHelper.fill(matrices, row.getX(), row.getY(), x + width - 17, row.getY() + lineHeight, 1090519039);
+            }
+        }
+        // Only the visible lines have a row, so all of them are rendered
+        for (TextFieldLine line : this.getVisibleRows()){
+            line.render(matrices, mouseX, mouseY, delt);
         }
     }
 
@@ -279,11 +320,13 @@ public class TextEditor implements Element, Selectable {
         this.width = width;
         this.height = height;
         this.maxLines = Math.floorDiv(height, lineHeight);
+        this.createRows();
         this.updateLines(false);
     }
 
-    private OrderedText provideRenderText(String original, int firstCharacterIndex) {
-        return CommandBlockIntellisense.highlight(null, original, firstCharacterIndex);
+    private OrderedText provideRenderText(TextFieldLine line, String original, int firstCharacterIndex) {
+        // Each line asks for its own text, line numbers start at 1
+        return this.intellisense.highlight(line.getLineNum() - 1, original, firstCharacterIndex);
     }
 
     //*************************************************************
@@ -301,254 +344,86 @@ public class TextEditor implements Element, Selectable {
         if (Objects.equals(cmdLines.get(cmdLines.size() - 1), "") && cmdLines.size() > 1){
             cmdLines.remove(cmdLines.size() - 1);
         }
-        // Reset and inject the lines into the editor
-        lines.clear();
-        for (String line : cmdLines){
-            this.addLine(line);
-        }
+        // Reset the text of the editor, the rows will pick it up
+        this.selectionAnchor = -1;
+        this.buffer.setText(cmdLines);
         this.updateLines(true);
     }
 
     public String getCommand(boolean inline){
-        StringBuilder command = new StringBuilder();
-        // Combine all lines into a single string
-        for (TextFieldLine line : lines){
-            command.append(line.getText()).append("\n");
-        }
+        // The buffer keeps the combined text until the next edit
+        String command = this.buffer.getText();
         // inLine flag denotes if it has to transform it into a compacted 1 liner command
         // since minecraft only understands inline commands
-        if (!inline) return command.toString();
-        return this.makeInline(command.toString());
+        if (!inline) return command;
+        return this.makeInline(command);
     }
 
-    public void updateFullText(){
-        // This function updates the string containing the whole text
-        fullText = new StringBuilder();
-        for (TextFieldLine line : lines){
-            fullText.append(line.getText()).append("\n");
-        }
+    private void setLineText(int line, String text){
+        this.buffer.setLine(line, text);
+        TextFieldLine row = this.getRow(line);
+        if (row != null) row.setText(text, cursorShift);
     }
 
-    public String autoFormat(String text){
-        // Start with the inline version of the command
-        StringBuilder str = new StringBuilder(this.makeInline(text));
-        int stack = 0;
-        // Remove the strings from the command and store it separately
-        List<String> cmdCommentParsed = this.separateStringsFromCommand(str.toString());
-
-        // Add intros in between scopes and after commas
-        // Brackets between quotes must be treated specially, and so are scopes before commas
-        // Remove possible repeated newlines
-        // Add spaces between an equal operator
-        // Finally, strip starting and ending whitespace
-        str = new StringBuilder(cmdCommentParsed.get(0)
-                .replaceAll("}", "\n}\n")
-                .replaceAll("]", "\n]\n")
-                .replaceAll("\\{", "\n{\n")
-                .replaceAll("\\[", "\n[\n")
-                .replaceAll(",", ",\n")
-                .replaceAll("\n{2,}", "\n")
-                .replaceAll("'\n\\[", "\n'[")
-                .replaceAll("'\n\\{", "\n'{")
-                .replaceAll("\"\n\\[", "\n\"[")
-                .replaceAll("\"\n\\{", "\n\"{")
-                .replaceAll("]\n'", "]'")
-                .replaceAll("}\n'", "}'")
-                .replaceAll("]\n,", "],")
-                .replaceAll("}\n,", "},")
-                .replaceAll("\n{2,}", "\n")
-                .replaceAll("\\{\n}", "{\n\n}")
-                .replaceAll("\\[\n]", "[\n\n]")
-                .replaceAll("=", " = ")
-                .strip());
-
-        // Pop the full command from the comments
-        cmdCommentParsed.remove(0);
-
-        // Find the elements that have coordinates so the system doesn't put intros in the middle
-        Matcher coordMatchFinder = Pattern.compile(RegularExpressions.coords).matcher(str);
-        List<int[]> coordMatches = new ArrayList<>();
-
-        while (coordMatchFinder.find()){
-            coordMatches.add(new int[]{coordMatchFinder.start(), coordMatchFinder.end()});
-        }
-
-        // Add tabs within scopes to create proper indentation
-        int lastNewLine = 0;
-        boolean overSkipped = false;
-        boolean inString = false;
-        for (int i = 0; i < str.length(); i++){
-            char currentChar = str.charAt(i);
-            if (inString){
-                if (currentChar == '\n') {
-                    str.deleteCharAt(i);
-                    i--;
-                }
-                else if (currentChar == '"') inString = false;
-                continue;
-            }
-            // If it happens to stumble upon a coordinate, simply move past it
-            for (int[] coords : coordMatches){
-                if (i == coords[0]){
-                    i = coords[1];
-                    // There is a chance the coordinates where the last thing in the string
-                    if (i >= str.length()) overSkipped = true;
-                    else currentChar = str.charAt(i);
-                    break;
-                }
-            }
-            if (overSkipped) break;
-
-            if (currentChar == '"'){
-                inString = true;
-            }
-            else if (currentChar == '{' || currentChar == '['){
-                stack++;
-            }
-            else if (currentChar == '\n'){
-                lastNewLine = i;
-                char nextChar = str.charAt(i + 1);
-                // Reduce the scope before closing brackets so that the closing
-                // and opening brackets are aligned
-                if (nextChar == ']' || nextChar == '}'){
-                    stack--;
-                }
-                i = addTabToList(str, stack, coordMatches, i);
-            }
-            if (currentChar == ' ' && i - lastNewLine > 60){
-                str.insert(++i, "\n");
-                lastNewLine = i;
-                i = addTabToList(str, stack, coordMatches, i);
-            }
-        }
-
-        // Restore the comments into the commant, respecting escaped characters
-        for (String comment : cmdCommentParsed){
-            str = new StringBuilder(str.toString().replaceFirst("\"\"", comment.replaceAll("\\\\", "\\\\\\\\")));
-        }
-
-        return str.toString();
+    private void syncFocusedRow(){
+        // Only the focused row can be edited by the widget itself, bring whatever it did into the buffer.
+        // If it didn't change anything it still holds the very same String
+        TextFieldLine row = this.getFocusedRow();
+        if (row != null) this.buffer.setLine(this.focusedLine, row.getText());
     }
 
-    private int addTabToList(StringBuilder str, int stack, List<int[]> coordMatches, int i) {
-        for (int j = 0; j < stack; j++){
-            // Tab length depends on a variable
-            str.insert(i + 1, new String(new char[TextFieldLine.tabLength]).replace('\0', ' '));
-            i += lineShift;
-            coordMatches.replaceAll(ints -> new int[]{
-                    ints[0] + lineShift * stack,
-                    ints[0] + lineShift * stack
-            });
-        }
-        return i;
+    public String autoFormat(String text){
+        // Start with the inline version of the command, the formatter lays it out again from scratch
+        return CommandFormatter.format(this.makeInline(text));
     }
 
-    private int getStackValueAtLine(int lineNum){
-        int stack = 0;
-        int i = 0;
-        // If the desired line has a closing scope symbol the value is one less
-        if (0 < lines.get(focusedLine).getText().length() &&
-               (lines.get(focusedLine).getText().charAt(0) == ']' ||
-                lines.get(focusedLine).getText().charAt(0) == '}'))
-                    stack--;
-        for (TextFieldLine line : lines) {
-            String text = line.getText();
-
-            if (i == lineNum) {
-                return stack;
-            }
-            for (int j = 0; j < text.length(); j++) {
-                if (text.charAt(j) == '[' || text.charAt(j) == '{') stack++;
-                if (text.charAt(j) == ']' || text.charAt(j) == '}') stack--;
-            }
-            i++;
+    public void indent(boolean outdent) {
+        if (focusedLine < 0 || focusedLine >= this.buffer.getLineCount()) return;
+        this.revealFocusedLine();
+        // Without a selection, Tab just writes a tab at the cursor
+        if (this.selectionAnchor == -1 && !outdent) {
+            this.insertTab();
+            this.updateLines(true);
+            return;
         }
-        return stack;
-    }
-
-    private void addLine(String text){
-        this.addLine(text, -1);
-    }
-
-    private void addLine(String text, int pos){
-        if (pos == -1) pos = this.lines.size();
-        TextFieldLine newLine = new TextFieldLine(textRenderer, x + 3, y + 5 + pos * lineHeight, this.width - 20, lineHeight, text);
-        newLine.setRenderTextProvider(this::provideRenderText);
-        newLine.setMaxLength(32500);
-        newLine.setEditable(true);
-        newLine.setDrawsBackground(false);
-        newLine.setText(text, this.lineShift);
-        lines.add(pos, newLine);
+        int first = this.getFirstSelectedLine();
+        int last = this.getLastSelectedLine();
+        String tab = " ".repeat(TextFieldLine.tabLength);
+        List<String> lines = new ArrayList<>(last - first + 1);
+        boolean changed = false;
+        int cursor = this.getCursor();
+        for (int line = first; line <= last; line++) {
+            String text = this.buffer.getLine(line);
+            // Outdenting only removes spaces, up to one tab of them
+            int removed = 0;
+            while (outdent && removed < tab.length() && removed < text.length() && text.charAt(removed) == ' ') removed++;
+            String newText = outdent ? text.substring(removed) : tab + text;
+            if (line == focusedLine) cursor = Math.max(0, cursor + newText.length() - text.length());
+            changed = changed || newText.length() != text.length();
+            lines.add(newText);
+        }
+        if (!changed) return;
+        // All the lines change with a single edit, so they are undone together and the lines are refreshed once
+        this.history.split();
+        this.buffer.replaceLines(first, last + 1, lines);
+        this.history.split();
+        this.bindRows();
+        this.jumpTo(cursor);
+        this.updateLines(true);
     }
 
-    public void addTab() {
-        if (focusedLine < 0 || focusedLine >= this.lines.size()) return;
-        this.lines.get(focusedLine).addTab();
-        this.updateLines(true);
+    private void insertTab() {
+        this.getFocusedRow().addTab();
+        this.syncFocusedRow();
     }
 
     private void removeLine(int pos){
-        lines.remove(pos);
-        this.updateLines(true);
+        this.buffer.removeLine(pos);
     }
 
     private String makeInline(String cmd){
-        // Remove linebreaks since the string detector cannot deal with these
-        // The string detector will remove the string content so the formatter doesn't modify them
-        List<String> cmdParts = this.separateStringsFromCommand(cmd.replaceAll("\n", " "));
-        // Replace any groups of whitespace into one space character
-        StringBuilder formatted = new StringBuilder(cmdParts.get(0).strip().replaceAll("\\s+", " "));
-        cmdParts.remove(0);
-        int stack = 0;
-        // Iterate through every character of the string. Do not iterate the first nor last chars
-        for (int i = 1; i < formatted.length() - 1; i++){
-            char curr = formatted.charAt(i);
-            // Stack handling
-            if (curr == '{' || curr == '[') stack++;
-            else if (curr == '}' || curr == ']') stack--;
-
-            char prev = formatted.charAt(i - 1);
-            char next = formatted.charAt(i + 1);
-
-            String specialChars = "{}[]=,";
-            String letters = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
-            // Remove spaces around scope symbols, commas or equal signs
-            if (curr == ' ' && (specialChars.indexOf(prev) != -1 || specialChars.indexOf(next) != -1)){
-                // If it's at the outermost part of the command (arguments are separated by spaces here)
-                // brackets must be stuck to the previous argument, otherwise minecraft will not like it
-                // THIS MUST NOT HAPPEN FOR NUMBERS. Minecraft formatting is very picky :(
-                if (stack == 0 && (letters.indexOf(prev) == -1 || (next != '[' && next != '{'))) continue;
-                formatted.deleteCharAt(i);
-                i--;
-            }
-        }
-
-        // Restore all strings into the command, escaping properly the backslashes
-        for (String comment : cmdParts){
-            formatted = new StringBuilder(formatted.toString().replaceFirst("\"\"", comment.replaceAll("\\\\", "\\\\\\\\")));
-        }
-
-        return formatted.toString();
-    }
-
-    private List<String> separateStringsFromCommand(String command){
-        List<String> strings = new ArrayList<>();
-        // Fetch all string patterns
-        Matcher strMatcher = Pattern.compile(RegularExpressions.strings).matcher(command);
-        StringBuilder cmdBuilder = new StringBuilder(command);
-        int deleteOffset = 0;
-        // Iterate over all matches
-        while (strMatcher.find()){
-            // Remove the content of all strings and store it separately
-            cmdBuilder.delete(strMatcher.start() + 1 - deleteOffset, strMatcher.end() - 1 - deleteOffset);
-            strings.add(strMatcher.group(0));
-            // Since it's deleting, all future matches will not be where they should be, shift them.
-            // substract 2 because it must not include opening and closing quotes in the deletion
-            deleteOffset += strMatcher.group(0).length() - 2;
-        }
-        // Add the resulting command at the beginning of the list
-        strings.add(0, cmdBuilder.toString());
-        return strings;
+        // Minecraft only understands single line commands
+        return CommandFormatter.makeInline(cmd);
     }
 
     //*************************************************************
@@ -556,9 +431,9 @@ public class TextEditor implements Element, Selectable {
     //*************************************************************
 
     private void setFocusedLine(int newFocusedLine){
-        if (newFocusedLine < 0 || newFocusedLine > this.lines.size() - 1) {
-            if (this.focusedLine < 0 || this.focusedLine > this.lines.size() -1) lines.get(focusedLine).setFocus(false);
+        if (newFocusedLine < 0 || newFocusedLine > this.buffer.getLineCount() - 1) {
             this.focusedLine = -1;
+            this.bindRows();
             return;
         }
         // Early exit
@@ -571,58 +446,98 @@ public class TextEditor implements Element, Selectable {
         else if (newFocusedLine >= this.lineShift + this.maxLines){
             this.updateLineShift(newFocusedLine - this.maxLines + 1);
         }
-        // Change the focus so minecraft knows which is the active line
-        if (!(focusedLine < 0 || focusedLine > this.lines.size() - 1))
-            this.lines.get(focusedLine).setFocus(false);
+        // Rebinding the rows moves the focus so minecraft knows which is the active line
         this.focusedLine = newFocusedLine;
-        this.lines.get(focusedLine).setFocus(true);
+        this.bindRows();
     }
 
-    // IMPORTANT: This function will reset any cursor, make sure to update cursor AFTER calling it, not before
     private void updateLines(boolean textChanged){
-        int i = 0;
-        int cursor = -1;
-        // If there is a cursor it must keep it, since updating text causes the lines to lose it
-        if (focusedLine >= 0 && focusedLine <= this.lines.size() - 1)
-            cursor  = this.lines.get(focusedLine).getCursor();
         // Update how much shift has to be done horizontally so everything stays aligned
         this.calculateCursorShift();
-        for (TextFieldLine line : lines){
-            // Position in the visible box
-            int pos = i - this.lineShift;
-            // Update the new position in the box
-            line.setY(y + 5 + pos * lineHeight);
+        // Only the rows are updated, so this doesn't depend on how long the command is. They are bound right away
+        // because the next key, even in the same frame, edits the text through them
+        this.bindRows();
+        int cursor = this.focusedLine == -1 ? -1 : this.getCursor();
+        // Next edit starts here, in case it has to be undone
+        this.history.setCaret(this.focusedLine, Math.max(0, cursor));
+        // Relexing and counting characters wait for the next frame, or until the length is asked for, no matter how
+        // many edits come before it
+        this.linesDirty = true;
+        this.textDirty = this.textDirty || textChanged;
+    }
+
+    private void flushLines(){
+        if (!this.linesDirty) return;
+        int cursor = this.focusedLine == -1 ? -1 : this.getCursor();
+        // Lines that were not edited keep the same String, which lets the intellisense skip them when relexing and the
+        // counter skip them when measuring
+        List<String> lines = this.textDirty ? this.buffer.getLines() : List.of();
+        if (this.textDirty) this.commandLength = this.lengthTracker.update(lines);
+        this.intellisense.refresh(this.textDirty, lines, focusedLine, cursor);
+        this.linesDirty = false;
+        this.textDirty = false;
+    }
+
+    private void createRows(){
+        this.rows.clear();
+        for (int i = 0; i < this.maxLines; i++){
+            TextFieldLine row = new TextFieldLine(textRenderer, metrics, x + 3, y + 5 + i * lineHeight, this.width - 20, lineHeight, "");
+            row.setRenderTextProvider((original, firstCharacterIndex) -> this.provideRenderText(row, original, firstCharacterIndex));
+            row.setMaxLength(32500);
+            row.setEditable(true);
+            row.setDrawsBackground(false);
+            this.rows.add(row);
+        }
+        this.boundCount = 0;
+    }
+
+    private void bindRows(){
+        // If there is a cursor it must keep it, since updating text causes the lines to lose it
+        int cursor = this.getCursor();
+        this.boundShift = this.lineShift;
+        this.boundCount = Math.max(0, Math.min(this.rows.size(), this.buffer.getLineCount() - this.lineShift));
+        for (int i = 0; i < this.boundCount; i++){
+            TextFieldLine row = this.rows.get(i);
+            int line = this.lineShift + i;
+            // Rows that already show the line keep their text, and with it their cursor and selection
+            String text = this.buffer.getLine(line);
+            if (!row.getText().equals(text)) row.setText(text, cursorShift);
             // For the line counter at the left
-            line.setLineNum(i + 1);
+            row.setLineNum(line + 1);
             // So the line knows how bigh the line counter has to be
-            line.setMaxLines(lines.size());
+            row.setMaxLines(this.buffer.getLineCount());
             // Update the horizontal shift so all lines are aligned
-            line.setFirstCharacterIndex(cursorShift);
+            row.setFirstCharacterIndex(cursorShift);
             // Update the line counter prefix
-            line.updatePrefix();
-            i++;
+            row.updatePrefix();
+            row.setFocus(line == this.focusedLine);
         }
-        // If there was a cursor, restore it
-        if (cursor != -1) this.jumpTo(cursor);
-        if (textChanged) {
-            this.updateFullText();
-            this.updateCharCounter();
+        for (int i = this.boundCount; i < this.rows.size(); i++){
+            this.rows.get(i).setFocus(false);
         }
-        CommandBlockIntellisense.getInstance().refresh(textChanged, fullText.toString(), focusedLine, cursor);
+        // Give the cursor back to the focused line, or keep it around if it's not visible
+        TextFieldLine focusedRow = this.getFocusedRow();
+        if (focusedRow != null) focusedRow.setCursor(cursor);
+        else this.hiddenCursor = cursor;
     }
 
-    private void updateCharCounter(){
-        charCount = this.makeInline(this.fullText.toString()).length();
+    // Typing on a line that was scrolled out of view brings it back
+    private void revealFocusedLine(){
+        if (this.getFocusedRow() != null) return;
+        if (this.focusedLine < this.lineShift) this.updateLineShift(this.focusedLine);
+        else this.updateLineShift(this.focusedLine - this.maxLines + 1);
+        this.bindRows();
     }
 
     private void calculateCursorShift(){
-        if (focusedLine < 0 || focusedLine > this.lines.size() - 1) return;
-        this.cursorShift = lines.get(focusedLine).getFirstCharacterIndex();
+        TextFieldLine row = this.getFocusedRow();
+        if (row == null) return;
+        this.cursorShift = row.getFirstCharacterIndex();
     }
 
     private void updateLineShift(int lineShift){
         // The first visible line can at most be the last line and, obviously, at least the first line
-        this.lineShift = Math.max(0, Math.min(this.lines.size() - 1, lineShift));
+        this.lineShift = Math.max(0, Math.min(this.buffer.getLineCount() - 1, lineShift));
     }
 
     private void jumpTo(int cursor){
@@ -635,8 +550,10 @@ public class TextEditor implements Element, Selectable {
         if (focusedLine == -1) return;
         // Make the cursor wrap around so -1 means the end of the string, -2 is one more to the left, and so on
         if (cursor < 0)
-            cursor = lines.get(focusedLine).getText().length() - (-cursor - 1);
-        this.lines.get(focusedLine).setCursor(cursor);
+            cursor = this.buffer.getLine(focusedLine).length() - (-cursor - 1);
+        TextFieldLine row = this.getFocusedRow();
+        if (row != null) row.setCursor(cursor);
+        else this.hiddenCursor = cursor;
     }
 
     //**********************************************************
@@ -644,73 +561,31 @@ public class TextEditor implements Element, Selectable {
     //**********************************************************
 
     public void setInitialUndo() {
-        this.saveUndoSnapshot(false);
-    }
-
-    private void saveUndoSnapshot(EditorSnapshot snap, boolean fromRedo) {
-        // If the undo stack is full, remove the oldest one
-        if (this.undos.size() == maxUndos) this.undos.remove(0);
-        this.undos.push(snap);
-        this.wasThereUndoUpdate = true;
-        // Sometimes a redo can trigger an undo, this flag prevents the redo stack from being emptied unintentionally
-        if (!fromRedo)
-            this.clearRedo();
-    }
-
-    private EditorSnapshot createSnapshot(){
-        // Make sure the fulltext is up to date
-        this.updateFullText();
-        boolean isThereFocus = !(focusedLine < 0 || focusedLine > this.lines.size() - 1);
-        // Create a snapshot with current parameters and save it
-        return new EditorSnapshot(isThereFocus ? this.lines.get(focusedLine).getCursor() : 0, focusedLine, this.fullText.toString());
-    }
-    private void saveUndoSnapshot(boolean fromRedo) {
-        EditorSnapshot snap = createSnapshot();
-        this.saveUndoSnapshot(snap, fromRedo);
-    }
-
-    private void saveRedoSnapshot() {
-        EditorSnapshot snap = createSnapshot();
-        this.saveRedoSnapshot(snap);
-    }
-
-    private void saveRedoSnapshot(EditorSnapshot snap){
-        // If the redo stack is full, remove the oldest one
-        if (this.redos.size() == maxUndos) this.redos.remove(0);
-        this.redos.push(snap);
+        // Whatever the editor has at this point can't be undone
+        this.history.clear();
     }
 
     private void popUndo(){
+        UndoHistory.Step step = this.history.undo();
         // If empty, it can't pop
-        if (this.undos.empty()) return;
-        EditorSnapshot snap = this.undos.pop();
-        // Every undo transforms into a redo
-        this.saveRedoSnapshot();
-        // Paste the snapshot code and update focused line
-        this.updateCommand(snap.text(), false);
-        this.jumpTo(snap.line(), snap.cursor());
-        this.wasThereUndoUpdate = true;
-        // After a pop, any valid key should trigger an undo
-        this.lastKey = -1;
-        this.updateLines(true);
+        if (step == null) return;
+        this.restoreStep(step.getLineBefore(), step.getCursorBefore());
     }
 
     private void popRedo(){
+        UndoHistory.Step step = this.history.redo();
         // If empty, it can't pop
-        if (this.redos.empty()) return;
-        this.saveUndoSnapshot(true);
-        EditorSnapshot snap = this.redos.pop();
-        // Paste the snapshot code and update focused line
-        this.updateCommand(snap.text(), false);
-        this.jumpTo(snap.line(), snap.cursor());
-        // After a pop, any valid key should trigger an undo
-        this.lastKey = -1;
-        this.updateLines(true);
+        if (step == null) return;
+        this.restoreStep(step.getLineAfter(), step.getCursorAfter());
     }
 
-    private void clearRedo(){
-        // Made for abstraction in case something extra has to be done in the future
-        this.redos.clear();
+    private void restoreStep(int line, int cursor){
+        // The history only patched the lines it changed, bind the rows to them before moving the cursor
+        this.updateLineShift(this.lineShift);
+        this.bindRows();
+        this.jumpTo(line, cursor);
+        // After a pop, any valid key should trigger an undo
+        this.lastKey = -1;
     }
 
     //***********************************************************
@@ -718,69 +593,113 @@ public class TextEditor implements Element, Selectable {
     //***********************************************************
 
     private void insertIntro(){
-        TextFieldLine line = this.lines.get(focusedLine);
-        int cursor = line.getCursor();
-        // Get the text from the cursor till the end of the line
-        String text = line.getText().substring(cursor);
-        // Set the line text to be the part it didn't get
-        line.setText(line.getText().substring(0, cursor), cursorShift);
-        // Create new line below the original one with the text it extracted earlier
-        // Strip leading spaces because it's going to manually set the tabs later
-        this.addLine(text.stripLeading(), focusedLine + 1);
-        this.jumpTo(focusedLine + 1, 0);
-        // Get how many tabs it has to put in the new line
-        int stack = getStackValueAtLine(focusedLine);
-        for (int i = 0; i < stack; i++){
-            this.addTab();
-        }
+        String lineText = this.buffer.getLine(focusedLine);
+        int cursor = this.getCursor();
+        // The line is split at the cursor
+        String before = lineText.substring(0, cursor);
+        // Strip leading spaces because the new line gets the indentation of its scope instead
+        String text = lineText.substring(cursor).stripLeading();
+        // Scopes open at the start of the line plus the ones the first half opens. If the new line starts
+        // with a closing scope symbol the value is one less
+        int stack = this.buffer.getScopeDepth(focusedLine) + TextBuffer.getScopeChange(before);
+        if (text.startsWith("]") || text.startsWith("}")) stack--;
+        String indentation = " ".repeat(Math.max(0, stack) * TextFieldLine.tabLength);
+        // Both halves and the indentation go in with a single edit, the lines are refreshed by whoever called this
+        this.buffer.replaceLines(focusedLine, focusedLine + 1, List.of(before, indentation + text));
+        this.jumpTo(focusedLine + 1, indentation.length());
     }
 
     private void insertScopedIntros(){
-        int cursor = this.lines.get(focusedLine).getCursor();
-        String text = this.lines.get(focusedLine).getText();
+        int cursor = this.getCursor();
+        String text = this.buffer.getLine(focusedLine);
         // Put the opening symbol in a newLine only if there is additional text in the line currently
         if (!text.substring(0, cursor - 1).trim().equals("")) {
             // Move one back to get before the opening symbol, then intro, then get back to the middle
-            this.jumpTo(this.lines.get(focusedLine).getCursor() - 1);
+            this.jumpTo(this.getCursor() - 1);
             this.insertIntro();
-            this.jumpTo(this.lines.get(focusedLine).getCursor() + 1);
+            this.jumpTo(this.getCursor() + 1);
         }
         // Two intros to leave an empty line inside, then add one tab to the middle line to get proper indents
         this.insertIntro();
         this.insertIntro();
         this.jumpTo(focusedLine - 1, -1);
-        this.addTab();
+        this.insertTab();
     }
 
     private void processIntro() {
-        TextFieldLine line = this.lines.get(focusedLine);
-        int cursor = line.getCursor();
+        String lineText = this.buffer.getLine(focusedLine);
+        int cursor = this.getCursor();
         // If at the moment of pressing intro, there are opening and closing scope symbols
         // to the left and right of the cursor respectively, that means the player is adding a newline
         // to an empty scope. In that case it must put the scope symbols in their own lines with
         // an empty one in the middle
-        if (cursor > 0 && cursor < line.getText().length()){
-            char prev = line.getText().charAt(cursor - 1);
-            char next = line.getText().charAt(cursor);
+        if (cursor > 0 && cursor < lineText.length()){
+            char prev = lineText.charAt(cursor - 1);
+            char next = lineText.charAt(cursor);
             if ((prev == '[' && next == ']') || (prev == '{' && next == '}')){
                 this.insertScopedIntros();
-                this.updateLines(true);
                 return;
             }
         }
         this.insertIntro();
-        this.updateLines(true);
+    }
+
+    // Whether a string is still open right after the given start of the focused line. Strings can go on for
+    // several lines, so the lines above count too
+    private boolean isInString(String before){
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < this.focusedLine; i++) text.append(this.buffer.getLine(i)).append('\n');
+        text.append(before);
+        return StringLiterals.isOpen(text);
+    }
+
+    private boolean processPaste(String text){
+        // Small pastes are left to the TextFieldWidget, like in any other text field
+        if (text.indexOf('\n') == -1 && text.length() <= bulkPasteLength) return false;
+        // Whatever is selected gets replaced by the paste
+        TextFieldLine row = this.getFocusedRow();
+        this.history.split();
+        row.write("");
+        this.syncFocusedRow();
+        String lineText = this.buffer.getLine(focusedLine);
+        int cursor = row.getCursor();
+        String before = lineText.substring(0, cursor);
+        List<String> lines = new ArrayList<>();
+        if (text.length() <= bulkPasteLength || this.isInString(before)){
+            // Short pastes and pastes inside a string go in exactly as they were copied, one line per line
+            String[] pasted = text.replace("\r", "").split("\n", -1);
+            for (int i = 0; i < pasted.length; i++){
+                lines.add(i == 0 ? before + pasted[i] : pasted[i]);
+            }
+        }
+        else {
+            // The pasted text goes through the same minify and format passes as a command opened in the editor, then
+            // every line after the first one is indented to the scope the cursor is at
+            String[] pasted = CommandFormatter.format(this.makeInline(text)).split("\n", -1);
+            int stack = this.buffer.getScopeDepth(focusedLine) + TextBuffer.getScopeChange(before);
+            String indentation = " ".repeat(Math.max(0, stack) * TextFieldLine.tabLength);
+            for (int i = 0; i < pasted.length; i++){
+                lines.add((i == 0 ? before : indentation) + pasted[i]);
+            }
+        }
+        int last = lines.size() - 1;
+        int lastLength = lines.get(last).length();
+        lines.set(last, lines.get(last) + lineText.substring(cursor));
+        // All the lines go in with a single edit, which is a single undo step
+        this.buffer.replaceLines(focusedLine, focusedLine + 1, lines);
+        this.history.split();
+        this.bindRows();
+        this.jumpTo(focusedLine + last, lastLength);
+        return true;
     }
 
     private boolean ProcessBackslash(boolean del){
-        TextFieldLine line = this.lines.get(focusedLine);
-        int cursor = line.getCursor();
+        int cursor = this.getCursor();
         // If the Delete button was the one being pressed and it's the end of the line,
         // advance to the beginning of the next line
         if (del){
-            if (cursor == line.getText().length() && focusedLine < this.lines.size() - 1){
+            if (cursor == this.buffer.getLine(focusedLine).length() && focusedLine < this.buffer.getLineCount() - 1){
                 this.jumpTo(focusedLine + 1, 0);
-                line = this.lines.get(focusedLine);
                 cursor = 0;
             }
             else{
@@ -796,14 +715,13 @@ public class TextEditor implements Element, Selectable {
             return true;
         }
         // Get previous line and set the cursor to the end of the line
-        TextFieldLine prevLine = this.lines.get(focusedLine - 1);
-        cursor = prevLine.getText().length();
+        String prevText = this.buffer.getLine(focusedLine - 1);
+        cursor = prevText.length();
         // Add contents of the current line to the previous line
-        prevLine.setText(prevLine.getText() + line.getText(), cursorShift);
+        this.setLineText(focusedLine - 1, prevText + this.buffer.getLine(focusedLine));
         // Delete the current line and change focus to the previous one
         this.removeLine(focusedLine);
         this.jumpTo(focusedLine - 1, cursor);
-        this.updateLines(true);
         return true;
     }
 
@@ -815,22 +733,22 @@ public class TextEditor implements Element, Selectable {
             offset = -1;
         }
         else if (dir == Directions.DOWN){
-            if (focusedLine == this.lines.size() - 1) return;
+            if (focusedLine == this.buffer.getLineCount() - 1) return;
             offset = 1;
         }
         // Get cursor position and change focus
-        int cursor = this.lines.get(focusedLine).getCursor();
+        int cursor = this.getCursor();
         this.jumpTo(focusedLine + offset, cursor);
         this.updateLines(false);
     }
 
     private boolean processHorizontalArrows(Directions dir){
-        int cursor = this.lines.get(focusedLine).getCursor();
+        int cursor = this.getCursor();
         // If it's not managing a change of line, leave the handling to TextFieldWidget
         if (dir == Directions.LEFT &&
                 (cursor != 0 || focusedLine == 0) ||
             dir == Directions.RIGHT &&
-                (cursor != this.lines.get(focusedLine).getText().length() || focusedLine == this.lines.size() - 1))
+                (cursor != this.buffer.getLine(focusedLine).length() || focusedLine == this.buffer.getLineCount() - 1))
                 return false;
         if (dir == Directions.LEFT) this.jumpTo(focusedLine - 1, -1);
         else if (dir == Directions.RIGHT) this.jumpTo(focusedLine + 1, 0);
@@ -842,7 +760,58 @@ public class TextEditor implements Element, Selectable {
     //************************* GETTERS *************************
     //***********************************************************
 
+    // Length of the command once it's inline, counting every edit made so far
     public int getCommandLength(){
-        return this.charCount;
+        this.flushLines();
+        return this.commandLength;
+    }
+
+    // Lines selected with Shift + Up/Down, the focused line alone if there is no selection
+    private int getFirstSelectedLine(){
+        if (this.selectionAnchor == -1) return this.focusedLine;
+        return Math.min(Math.min(this.selectionAnchor, this.buffer.getLineCount() - 1), this.focusedLine);
+    }
+
+    private int getLastSelectedLine(){
+        if (this.selectionAnchor == -1) return this.focusedLine;
+        return Math.max(Math.min(this.selectionAnchor, this.buffer.getLineCount() - 1), this.focusedLine);
+    }
+
+    private List<TextFieldLine> getVisibleRows(){
+        return this.rows.subList(0, this.boundCount);
+    }
+
+    // Row showing the given line, if it is visible
+    private TextFieldLine getRow(int line){
+        int row = line - this.boundShift;
+        if (row < 0 || row >= this.boundCount) return null;
+        return this.rows.get(row);
+    }
+
+    // Rows are lineHeight apart from the top of the editor, so the one under the pointer is found with a division
+    private int getRowIndexAt(double mouseY){
+        int row = (int) Math.floor((mouseY - (this.y + 5)) / lineHeight);
+        return row >= 0 && row < this.boundCount ? row : -1;
+    }
+
+    private TextFieldLine getRowAt(double mouseY){
+        int row = this.getRowIndexAt(mouseY);
+        return row != -1 ? this.rows.get(row) : null;
+    }
+
+    // Row that follows the pointer while a button is held down
+    private TextFieldLine getPointerRow(double mouseY){
+        TextFieldLine row = this.getFocusedRow();
+        return row != null ? row : this.getRowAt(mouseY);
+    }
+
+    private TextFieldLine getFocusedRow(){
+        if (this.focusedLine == -1) return null;
+        return this.getRow(this.focusedLine);
+    }
+
+    private int getCursor(){
+        TextFieldLine row = this.getFocusedRow();
+        return row != null ? row.getCursor() : this.hiddenCursor;
     }
 }
\ No newline at end of file
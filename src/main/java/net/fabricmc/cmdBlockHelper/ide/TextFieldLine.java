@@ -12,14 +12,19 @@ public class TextFieldLine extends TextFieldWidget {
     public static final int tabLength = 2;
 
     private final TextFieldWidget lineCounter;
+    private final ColumnMetrics metrics;
     private String prefix;
     private int lineNum;
     private int maxLines;
+    // Values the prefix was last built with, rows are updated a lot more often than these change
+    private int prefixLineNum;
+    private int prefixMaxLines;
     private final int initX;
     private final int initW;
 
-    public TextFieldLine(TextRenderer textRenderer, int x, int y, int width, int height, String text) {
+    public TextFieldLine(TextRenderer textRenderer, ColumnMetrics metrics, int x, int y, int width, int height, String text) {
         super(textRenderer, x, y, width, height, Text.literal(text));
+        this.metrics = metrics;
         lineCounter = new TextFieldWidget(textRenderer, x, y, 20, height, Text.literal(text + "_lineCount"));
         lineNum = 1;
         prefix = lineNum + " -";
@@ -40,6 +45,22 @@ public class TextFieldLine extends TextFieldWidget {
         super.render(matrices, mouseX, mouseY, delta);
     }
 
+    @Override
+    public boolean mouseClicked(double mouseX, double mouseY, int button) {
+        // Same as TextFieldWidget, but the column under the pointer comes from the font's advance instead of
+        // trimming the text after the first visible character to width
+        if (!this.isVisible()) return false;
+        boolean inside = mouseX >= this.getX() && mouseX < this.getX() + this.width &&
+                         mouseY >= this.getY() && mouseY < this.getY() + this.height;
+        this.setTextFieldFocused(inside);
+        if (!this.isFocused() || !inside || button != 0) return false;
+        // Lines never draw a background, so their text starts right at x
+        int column = this.metrics.getColumns(MathHelper.floor(mouseX) - this.getX());
+        int visible = Math.min(this.metrics.getColumns(this.getInnerWidth()), this.getText().length() - this.getFirstCharacterIndex());
+        this.setCursor(this.getFirstCharacterIndex() + Math.min(column, Math.max(0, visible)));
+        return true;
+    }
+
     //***********************************************************
     //********************** TEXT HANDLING **********************
     //***********************************************************
@@ -49,11 +70,14 @@ public class TextFieldLine extends TextFieldWidget {
     }
 
     public void updatePrefix(){
+        if (prefixLineNum == lineNum && prefixMaxLines == maxLines) return;
+        prefixLineNum = lineNum;
+        prefixMaxLines = maxLines;
         // Get the line num and pad spaces till it gets to the desired length
         prefix = lineNum + " ".repeat(Math.max(0, Integer.toString(maxLines).length() - Integer.toString(lineNum).length())) + " -";
         lineCounter.setText(prefix);
         // Update the width of the prefix, then shrink and move the main line so everything fits together
-        int prefixWidth = 7 * (prefix.length() + 1);
+        int prefixWidth = metrics.getWidth(prefix.length() + 1);
         lineCounter.setWidth(prefixWidth);
         super.setWidth(this.initW - prefixWidth - 3);
         super.setX(this.initX + prefixWidth + 3);
@@ -65,6 +89,16 @@ public class TextFieldLine extends TextFieldWidget {
     //************************* GETTERS *************************
     //***********************************************************
 
+    public int getLineNum(){
+        return lineNum;
+    }
+
+    @Override
+    public int getCharacterX(int index){
+        if (index > this.getText().length()) return this.getX();
+        return this.getX() + this.metrics.getWidth(index);
+    }
+
     public int getFirstCharacterIndex(){
         // Small wrapper for the mixing Accessor function
         return ((TextFieldWidgetAccessor)this).firstCharacterIndexAccessor();
@@ -87,6 +121,23 @@ public class TextFieldLine extends TextFieldWidget {
         );
     }
 
+    @Override
+    public void setSelectionEnd(int index){
+        // Same as TextFieldWidget, but how much text fits comes from the font's advance instead of trimming the whole
+        // text after the first visible character, so moving the cursor doesn't get slower the longer the line is
+        int length = this.getText().length();
+        int selectionEnd = MathHelper.clamp(index, 0, length);
+        ((TextFieldWidgetAccessor)this).selectionEndSetter(selectionEnd);
+        int first = Math.min(this.getFirstCharacterIndex(), length);
+        int columns = this.metrics.getColumns(this.getInnerWidth());
+        int lastVisible = first + Math.min(columns, length - first);
+        // Scroll so the end of the selection is visible, a whole view to the left if it's right at the left edge
+        if (selectionEnd == first) first -= Math.min(columns, length);
+        if (selectionEnd > lastVisible) first += selectionEnd - lastVisible;
+        else if (selectionEnd <= first) first = selectionEnd;
+        this.setFirstCharacterIndex(first);
+    }
+
     public void setFocus(boolean focus){
         // Sets the focus on or off depending on the boolean value
         // For some reason minecraft only provides a toggle function, which is... bad
@@ -0,0 +1,181 @@
+package net.fabricmc.cmdBlockHelper.ide;
+
+import net.minecraft.util.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Undo and redo history of a TextBuffer. Instead of copies of the whole text, every step stores the lines its edits
+// replaced and the ones they put there, so undoing only patches those lines back.
+// Steps live in a ring buffer: the oldest step is dropped in O(1) once it's full, and redoable steps are the ones
+// right after the last undoable one
+class UndoHistory implements TextBuffer.ChangeListener {
+    // Edits made less than this apart are undone together unless something else splits them
+    final static int coalesceMillis = 1000;
+
+    // Lines [line, line + removed.size()) were replaced with the inserted ones
+    private record LineEdit(int line, List<String> removed, List<String> inserted) {}
+
+    static class Step {
+        private final List<LineEdit> edits;
+        // Where the cursor was before the first edit, and where it was when the step got undone
+        private int lineBefore, cursorBefore;
+        private int lineAfter, cursorAfter;
+        private long lastEditTime;
+
+        private Step(int line, int cursor) {
+            this.edits = new ArrayList<>();
+            this.lineBefore = line;
+            this.cursorBefore = cursor;
+            this.lineAfter = line;
+            this.cursorAfter = cursor;
+        }
+
+        int getLineBefore() {
+            return this.lineBefore;
+        }
+
+        int getCursorBefore() {
+            return this.cursorBefore;
+        }
+
+        int getLineAfter() {
+            return this.lineAfter;
+        }
+
+        int getCursorAfter() {
+            return this.cursorAfter;
+        }
+    }
+
+    private final TextBuffer buffer;
+    private final Step[] steps;
+    // Index of the oldest step in the ring, how many steps can be undone and how many can be redone after those
+    private int first;
+    private int undoable;
+    private int redoable;
+    // The next edit must start a new step
+    private boolean split;
+    // Edits made by the history itself must not be recorded
+    private boolean applying;
+    private int caretLine, caretCursor;
+
+    UndoHistory(TextBuffer buffer, int maxSteps) {
+        this.buffer = buffer;
+        this.steps = new Step[maxSteps];
+        this.first = 0;
+        this.undoable = 0;
+        this.redoable = 0;
+        this.split = true;
+        this.applying = false;
+        this.caretLine = -1;
+        this.caretCursor = 0;
+        buffer.setChangeListener(this);
+    }
+
+    //**********************************************************
+    //************************** CORE **************************
+    //**********************************************************
+
+    @Override
+    public void linesReplaced(int line, List<String> removed, List<String> inserted) {
+        if (this.applying) return;
+        long time = Util.getMeasuringTimeMs();
+        Step step = this.undoable > 0 ? this.steps[this.index(this.undoable - 1)] : null;
+        if (this.split || step == null || time - step.lastEditTime > coalesceMillis) {
+            step = this.push();
+        }
+        step.lastEditTime = time;
+        List<LineEdit> edits = step.edits;
+        // Typing keeps changing the same line, only the text before the first change and after the last one matter
+        if (removed.size() == 1 && inserted.size() == 1 && !edits.isEmpty()) {
+            LineEdit last = edits.get(edits.size() - 1);
+            if (last.line() == line && last.inserted().size() == 1) {
+                edits.set(edits.size() - 1, new LineEdit(line, last.removed(), inserted));
+                return;
+            }
+        }
+        edits.add(new LineEdit(line, removed, inserted));
+    }
+
+    // Returns the undone step so the editor can put the cursor back, or null if there was nothing to undo
+    Step undo() {
+        if (this.undoable == 0) return null;
+        Step step = this.steps[this.index(this.undoable - 1)];
+        step.lineAfter = this.caretLine;
+        step.cursorAfter = this.caretCursor;
+        this.undoable--;
+        this.redoable++;
+        this.applying = true;
+        for (int i = step.edits.size() - 1; i >= 0; i--) {
+            LineEdit edit = step.edits.get(i);
+            this.apply(edit.line(), edit.inserted(), edit.removed());
+        }
+        this.applying = false;
+        this.split = true;
+        return step;
+    }
+
+    Step redo() {
+        if (this.redoable == 0) return null;
+        Step step = this.steps[this.index(this.undoable)];
+        this.undoable++;
+        this.redoable--;
+        this.applying = true;
+        for (LineEdit edit : step.edits) {
+            this.apply(edit.line(), edit.removed(), edit.inserted());
+        }
+        this.applying = false;
+        this.split = true;
+        return step;
+    }
+
+    // Makes the next edit start a new step
+    void split() {
+        this.split = true;
+    }
+
+    void clear() {
+        for (int i = 0; i < this.undoable + this.redoable; i++) this.steps[this.index(i)] = null;
+        this.first = 0;
+        this.undoable = 0;
+        this.redoable = 0;
+        this.split = true;
+    }
+
+    private Step push() {
+        // Any new step makes whatever was undone unreachable
+        for (int i = 0; i < this.redoable; i++) this.steps[this.index(this.undoable + i)] = null;
+        this.redoable = 0;
+        // If the ring is full, the oldest step is overwritten
+        if (this.undoable == this.steps.length) {
+            this.first = this.index(1);
+            this.undoable--;
+        }
+        Step step = new Step(this.caretLine, this.caretCursor);
+        this.steps[this.index(this.undoable)] = step;
+        this.undoable++;
+        this.split = false;
+        return step;
+    }
+
+    private void apply(int line, List<String> from, List<String> to) {
+        // Changing a single line is cheaper than shifting the rest of them
+        if (from.size() == 1 && to.size() == 1) this.buffer.setLine(line, to.get(0));
+        else this.buffer.replaceLines(line, line + from.size(), to);
+    }
+
+    private int index(int offset) {
+        return (this.first + offset) % this.steps.length;
+    }
+
+    //***********************************************************
+    //************************* SETTERS *************************
+    //***********************************************************
+
+    // Where the cursor is once the editor is done handling an input, which is where it was before the next edit
+    void setCaret(int line, int cursor) {
+        this.caretLine = line;
+        this.caretCursor = cursor;
+    }
+}
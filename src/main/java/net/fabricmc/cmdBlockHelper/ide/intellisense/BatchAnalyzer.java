@@ -0,0 +1,65 @@
+package net.fabricmc.cmdBlockHelper.ide.intellisense;
+
+import net.fabricmc.cmdBlockHelper.ide.CmdScreen;
+import net.fabricmc.cmdBlockHelper.ide.InlineLengthTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Runs the intellisense over many commands at once without any editor, for example to audit every command block
+// exported from a map. Every command gets its own analyzer, so they can all be processed in parallel
+public class BatchAnalyzer {
+    public record LintIssue(int line, int column, String message) {}
+
+    // Reports keep the position of their command in the input list
+    public record LintReport(int index, String command, List<LintIssue> issues) {
+        public boolean isClean() {
+            return this.issues.isEmpty();
+        }
+    }
+
+    private BatchAnalyzer() {}
+
+    public static List<LintReport> analyze(List<String> commands) {
+        return analyze(commands, ForkJoinPool.commonPool());
+    }
+
+    public static List<LintReport> analyze(List<String> commands, ForkJoinPool pool) {
+        // Parallel streams run in the pool that submits them, which lets the caller decide how many cores to use
+        return pool.submit(() -> IntStream.range(0, commands.size())
+                .parallel()
+                .mapToObj(i -> lint(i, commands.get(i)))
+                .toList()
+        ).join();
+    }
+
+    private static LintReport lint(int index, String command) {
+        // The analysis runs right on this thread, there's nothing to hand it to
+        CommandBlockIntellisense intellisense = new CommandBlockIntellisense(command, Runnable::run);
+        AnalysisSnapshot snapshot = intellisense.getSnapshot();
+        SymbolTable symbols = snapshot.symbols();
+        List<LintIssue> issues = new ArrayList<>();
+        for (int symbol = 0; symbol < symbols.count; symbol++) {
+            char chr = symbols.scopeSymbols[symbol];
+            if (chr == 0) continue;
+            // Closing symbols without a matching opening one, or scopes of a different type, are flagged by the matching
+            if (symbols.hasFlag(symbol, SymbolTable.ERROR))
+                issues.add(new LintIssue(symbols.lineOf(symbol), symbols.starts[symbol], "Mismatched '" + chr + "'"));
+            // Opening symbols that are never closed are not
+            else if ((chr == '[' || chr == '{') && symbols.siblings[symbol] == -1)
+                issues.add(new LintIssue(symbols.lineOf(symbol), symbols.starts[symbol], "Unclosed '" + chr + "'"));
+        }
+        if (snapshot.endState().inString())
+            issues.add(new LintIssue(Math.max(0, symbols.lineCount - 1), 0, "Unterminated string"));
+        // The length is checked the same way the editor does it, once the command is inline. The text after the last
+        // newline is not a line on its own
+        List<String> lines = new ArrayList<>(List.of(command.split("\n", -1)));
+        if (lines.size() > 1 && lines.get(lines.size() - 1).isEmpty()) lines.remove(lines.size() - 1);
+        int length = new InlineLengthTracker().update(lines);
+        if (length > CmdScreen.maxCmdLength)
+            issues.add(new LintIssue(0, 0, "Command is " + length + " characters long, the limit is " + CmdScreen.maxCmdLength));
+        return new LintReport(index, command, issues);
+    }
+}
@@ -1,225 +1,328 @@
 package net.fabricmc.cmdBlockHelper.ide.intellisense;
 
-import com.mojang.brigadier.ParseResults;
-import net.fabricmc.cmdBlockHelper.ide.RegularExpressions;
-import net.minecraft.command.CommandSource;
 import net.minecraft.text.OrderedText;
+import net.minecraft.text.Style;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 enum ScopeType{
     BRACKET,
     BRACE
 }
 
-record StackElement(ScopeType type, CommandParserNode relatedNode) {
+// State carried from one line to the next by the lexer. Two lines that start with the same state will always
+// produce the same symbols, which is what allows relexing only the lines that actually changed
+record LexState(boolean inString, String scopes) {
+    static final LexState INITIAL = new LexState(false, "");
 }
 
+// Result of analyzing one version of the text. Published by the worker and never modified afterwards, so the
+// render thread can read it without locking
+record AnalysisSnapshot(int version, SymbolTable symbols, LexState endState) {}
+
 public class CommandBlockIntellisense {
-    private static CommandBlockIntellisense instance;
-    String rawText;
-    List<List<CommandParserNode>> symbols;
-    Stack<StackElement> scopeStack;
-    private int currentLine, currentCursorLine, currentCursorPos, lineStart;
+    // Everything down to the version is only touched by the analysis, which runs on the worker
+    List<String> lineTexts;
+    SymbolTable symbols;
+    // Lines being relexed are collected here and then replaced in the symbol table all at once
+    private final SymbolTable relexed;
+    // Entry state of every line, plus one extra element with the state after the last line
+    List<LexState> lineStates;
+    // Opening scope symbols that are still waiting for their closing sibling
+    private int[] scopeStack;
+    private int scopeDepth;
+    private final CommandLexer lexer;
+    private final StringBuilder scopes;
+    // Bumped every time the symbols change, so cached highlights know they are stale
+    private int version;
+
+    // Edits are handed to the worker through here. Only the latest text is kept, older ones are never analyzed
+    private final Executor executor;
+    private final AtomicReference<List<String>> pendingLines;
+    private final AtomicBoolean analyzing;
+    private volatile AnalysisSnapshot snapshot;
+
+    // The rest belongs to the render thread
+    private int currentCursorLine, currentCursorPos;
+    // Scope symbols touched by the cursor (at most two, when it sits between them) and a counter bumped when they change
+    private int cursorScopeA, cursorScopeB, cursorScopeVersion;
+    private AnalysisSnapshot cursorScopeSnapshot;
+    private final HighlightCache highlightCache;
 
     //**********************************************************
     //************************** CORE **************************
     //**********************************************************
 
-    private CommandBlockIntellisense(String rawText){
-        symbols = new ArrayList<>();
-        scopeStack = new Stack<>();
-        this.rawText = rawText;
-        currentLine = 0;
+    // Every editor has its own instance
+    public CommandBlockIntellisense(String rawText, Executor executor){
+        this.executor = executor;
+        pendingLines = new AtomicReference<>();
+        analyzing = new AtomicBoolean(false);
+        lineTexts = new ArrayList<>();
+        symbols = new SymbolTable(lineTexts);
+        relexed = new SymbolTable(lineTexts);
+        lineStates = new ArrayList<>(List.of(LexState.INITIAL));
+        scopeStack = new int[16];
+        lexer = new CommandLexer();
+        scopes = new StringBuilder();
+        highlightCache = new HighlightCache();
         currentCursorPos = 0;
-        this.parseSymbols();
-    }
-
-    // This is a singleton because I have to be able to use the stuff inside of the class in the highlight function
-    // which has to be static
-    public static CommandBlockIntellisense getInstance(){
-        return instance;
-    }
-
-    public static void resetInstance(String rawText){
-        instance = new CommandBlockIntellisense(rawText);
+        cursorScopeA = -1;
+        cursorScopeB = -1;
+        List<String> lines = new ArrayList<>(List.of(rawText.split("\n", -1)));
+        // The text after the last newline is not a line on its own
+        if (lines.get(lines.size() - 1).isEmpty()) lines.remove(lines.size() - 1);
+        // The first analysis is done right away so there is always a snapshot to render
+        this.parseSymbols(lines);
+        this.publish();
+        this.setCursorPos(0, 0);
     }
 
-    public void refresh(boolean textChanged, String text, int cursorLine, int cursorPos){
-        // If the refresh includes a change in text, recreate the symbols
+    public void refresh(boolean textChanged, List<String> lines, int cursorLine, int cursorPos){
+        // If the refresh includes a change in text, the lines that changed are relexed in the background. The list
+        // is owned by the analysis from here on
         if (textChanged){
-            this.rawText = text;
-            this.parseSymbols();
+            this.pendingLines.set(lines);
+            if (this.analyzing.compareAndSet(false, true))
+                this.executor.execute(this::analyze);
         }
         // In all cases update the cursor
         this.setCursorPos(cursorLine, cursorPos);
     }
 
-    private void parseSymbols() {
-        // Reset all variables
-        this.symbols.clear();
-        this.scopeStack.clear();
-        boolean inString = false;
-        int start = 0;
-        currentLine = 0;
-        lineStart = start;
-        // String of chars that will create single char symbols
-        String breakingChars = ",:=./";
+    private void analyze() {
+        try {
+            List<String> lines;
+            while ((lines = this.pendingLines.getAndSet(null)) != null) {
+                this.parseSymbols(lines);
+                // If the text changed again while parsing, this result is already stale. Go straight to the newest
+                // text instead of publishing it
+                if (this.pendingLines.get() == null) this.publish();
+            }
+        }
+        finally {
+            this.analyzing.set(false);
+        }
+        // Text submitted right before the flag was cleared would be left waiting otherwise
+        if (this.pendingLines.get() != null && this.analyzing.compareAndSet(false, true))
+            this.executor.execute(this::analyze);
+    }
+
+    private void publish() {
+        if (this.snapshot != null && this.snapshot.version() == this.version) return;
+        this.snapshot = new AnalysisSnapshot(this.version, this.symbols.copy(), this.lineStates.get(this.lineStates.size() - 1));
+    }
 
+    private void parseSymbols(List<String> lines) {
+        // Find the range of lines that changed by comparing with the lines of the last parse. Lines that were not
+        // touched keep the same String instance, so most comparisons end at the reference check
+        int oldCount = this.lineTexts.size();
+        int newCount = lines.size();
+        int first = 0;
+        while (first < oldCount && first < newCount && sameLine(this.lineTexts.get(first), lines.get(first)))
+            first++;
+        if (first == oldCount && first == newCount) return;
+        int suffix = 0;
+        while (suffix < oldCount - first && suffix < newCount - first &&
+                sameLine(this.lineTexts.get(oldCount - 1 - suffix), lines.get(newCount - 1 - suffix)))
+            suffix++;
+        int oldEnd = oldCount - suffix;
+        int newEnd = newCount - suffix;
 
-        Matcher coordMatchFinder = Pattern.compile(RegularExpressions.coords).matcher(rawText);
-        List<int[]> coordMatches = new ArrayList<>();
+        // Splice the changed range out and reserve room for the new lines. The entry state of the first changed
+        // line is still valid since it only depends on the lines above it. The first untouched line keeps the state
+        // it was lexed with, so it can be compared against later
+        LexState boundary = this.lineStates.get(oldEnd);
+        this.lineTexts.subList(first, oldEnd).clear();
+        this.lineStates.subList(first + 1, oldEnd + 1).clear();
+        for (int i = first; i < newEnd; i++){
+            this.lineTexts.add(i, lines.get(i));
+            this.lineStates.add(i + 1, i == newEnd - 1 ? boundary : null);
+        }
 
-        while (coordMatchFinder.find()){
-            coordMatches.add(new int[]{coordMatchFinder.start(), coordMatchFinder.end()});
+        // Relex from the first dirty line until the state carried into the next line matches the one that line
+        // was lexed with last time. From there on every line would produce the exact same symbols
+        this.relexed.clear();
+        int last = first - 1;
+        for (int i = first; i < newCount; i++){
+            LexState exit = this.lexLine(i, this.lineStates.get(i));
+            LexState previous = this.lineStates.set(i + 1, exit);
+            last = i;
+            if (i >= newEnd - 1 && exit.equals(previous)) break;
         }
+        // Lines below the relexed ones keep their symbols, even if they moved up or down
+        this.symbols.replaceLines(first, last + 1 - newEnd + oldEnd, last + 1, this.relexed);
+        // Scopes and arguments depend on the whole text, but they are cheap compared to lexing
+        this.matchScopes();
+        this.generateArgs();
+        this.version++;
+    }
 
-        for (int i = 0; i < rawText.length(); i++){
-            for (int[] coords : coordMatches){
-                if (coords[0] == i){
-                    start = addSymbol(start, coords[1], currentLine);
-                    CommandParserNode last = this.getLastSymbol();
-                    if (last != null) last.setIsCoords(true);
-                    i = start;
-                }
-            }
-            char chr = rawText.charAt(i);
-            // Escaped characters must be ignored, but if it's the last character, close up the symbol
-            if (i > 0 && rawText.charAt(i - 1) == '\\') {
-                if (i == rawText.length() - 1) {
-                    this.addSymbol(start, i, currentLine);
-                }
-                continue;
+    private LexState lexLine(int line, LexState entry) {
+        String text = this.lineTexts.get(line);
+        SymbolTable lineSymbols = this.relexed;
+        lineSymbols.beginLine();
+        boolean inString = entry.inString();
+        StringBuilder scopes = this.scopes;
+        scopes.setLength(0);
+        scopes.append(entry.scopes());
+        int start = 0;
+        this.lexer.reset(text);
+
+        // Every line is followed by a newline that is not part of its text, hence the extra iteration
+        for (int i = 0; i <= text.length(); i++){
+            // Coordinates are recognised even inside strings, and there may be several right after each other
+            int coordsEnd;
+            while (i < text.length() && (coordsEnd = this.lexer.coordsEnd(i)) != -1){
+                start = addSymbol(lineSymbols, text, start, coordsEnd);
+                lineSymbols.setFlag(lineSymbols.count - 1, SymbolTable.COORDS, true);
+                i = start;
             }
             // Every newline will create a symbol so that symbols are enclosed to their lines only
-            if (chr == '\n'){
+            if (i == text.length()){
                 // Strings can happen between multiple lines, we want the symbols to be aware of that
-                start = addSymbol(start, i, currentLine, true) + 1;
-                CommandParserNode last = this.getLastSymbol();
-                if (last != null) last.setIsString(inString);
-                lineStart = start;
-                currentLine++;
+                addSymbol(lineSymbols, text, start, i, true);
+                if (lineSymbols.getLineSize(lineSymbols.lineCount - 1) > 0)
+                    lineSymbols.setFlag(lineSymbols.count - 1, SymbolTable.STRING, inString);
+                break;
             }
+            char chr = text.charAt(i);
+            // Escaped characters must be ignored. Newlines can't be escaped though, the symbols must stay in their line
+            if (i > 0 && text.charAt(i - 1) == '\\') continue;
+            byte type = CommandLexer.classOf(chr);
             // If it's inside of a string, ignore everything but double quotes
-            else if (inString){
-                if (chr == '"'){
-                    start = this.addSymbol(start, i + 1, currentLine);
+            if (inString){
+                if (type == CommandLexer.QUOTE){
+                    start = addSymbol(lineSymbols, text, start, i + 1);
                     inString = false;
                 }
             }
             // If it's not inside a string, a double quote will start one
-            else if (chr =='"'){
-                start = this.addSymbol(start, i, currentLine);
+            else if (type == CommandLexer.QUOTE){
+                start = addSymbol(lineSymbols, text, start, i);
                 inString = true;
             }
             // If it's in the outermost scope, every space means a new argument
-            else if (this.scopeStack.empty() && chr == ' '){
-                start = this.addSymbol(start, i, currentLine);
+            else if (type == CommandLexer.SPACE){
+                if (scopes.length() == 0) start = addSymbol(lineSymbols, text, start, i);
             }
             // Breaking characters will end the current symbol and create a new one with one character only
-            else if (breakingChars.indexOf(chr) != -1){
-                start = this.addSymbol(start, i, currentLine);
-                start = this.addSymbol(start, i + 1, currentLine);
+            else if (type == CommandLexer.BREAKING){
+                start = addSymbol(lineSymbols, text, start, i);
+                start = addSymbol(lineSymbols, text, start, i + 1);
             }
             // Scope opening will also process the stack
-            else if (chr == '[' || chr == '{'){
-                start = this.addSymbol(start, i, currentLine);
-                start = this.addSymbol(start, i + 1, currentLine);
-                this.addElemToStack(chr);
+            else if (type == CommandLexer.SCOPE_OPEN){
+                start = addSymbol(lineSymbols, text, start, i);
+                start = addSymbol(lineSymbols, text, start, i + 1);
+                lineSymbols.scopeSymbols[lineSymbols.count - 1] = chr;
+                scopes.append(chr);
             }
             // Scope closing will also process the stack
-            else if (chr == ']' || chr == '}'){
-                start = this.addSymbol(start, i, currentLine);
-                start = this.addSymbol(start, i + 1, currentLine);
-                this.popElemFromStack(chr);
+            else if (type == CommandLexer.SCOPE_CLOSE){
+                start = addSymbol(lineSymbols, text, start, i);
+                start = addSymbol(lineSymbols, text, start, i + 1);
+                lineSymbols.scopeSymbols[lineSymbols.count - 1] = chr;
+                // Mismatched scopes stay in the stack, exactly like matchScopes does
+                int top = scopes.length() - 1;
+                if (top >= 0 && (scopes.charAt(top) == '[') == (chr == ']'))
+                    scopes.setLength(top);
             }
         }
-        // When finish, create the symbol arguments
-        this.generateArgs();
+        // Reuse the previous objects when possible so that unchanged states compare by reference
+        if (inString == entry.inString() && entry.scopes().contentEquals(scopes)) return entry;
+        return new LexState(inString, scopes.toString());
     }
 
-    private CommandParserNode getLastSymbol() {
-        int lastLine = this.symbols.size() - 1;
-        if (lastLine < 0) return null;
-        int lastIndex = this.symbols.get(lastLine).size() - 1;
-        return this.getSymbol(lastIndex, lastLine);
+    private static boolean sameLine(String a, String b) {
+        return a == b || a.equals(b);
     }
 
     //***********************************************************
     //********************* SYMBOL HANDLING *********************
     //***********************************************************
 
-    private int addSymbol(int start, int end, int line){
-        return this.addSymbol(start, end, line, false);
+    private int addSymbol(SymbolTable lineSymbols, String text, int start, int end){
+        return this.addSymbol(lineSymbols, text, start, end, false);
     }
 
-    private int addSymbol(int start, int end, int line, boolean sentByIntro){
+    private int addSymbol(SymbolTable lineSymbols, String text, int start, int end, boolean sentByIntro){
         // We don't want to add empty symbols
         if (start == end) return end;
-        // Prune the symbol content from the command
-        String symbolText = rawText.substring(start, end);
-        // Expand the list of lines until it gets the line it's in
-        while (line >= this.symbols.size()) symbols.add(new ArrayList<>());
         // Delegate empty symbols to form part of the next, that way if you have "   " and "example" the
         // resulting symbol will be "   example". This must not happen if the symbol is issued by a newline, since
         // you can't have one symbol distributed in two different lines
-        if (symbolText.strip().equals("") && !sentByIntro)
+        if (!sentByIntro && isBlank(text, start, end))
             return start;
         // Add the new symbol
-        symbols.get(line).add(new CommandParserNode(symbols.get(line).size(), line, start - lineStart, symbolText, this));
+        lineSymbols.add(start, end - start);
         return end;
     }
 
-    private void addElemToStack(char chr){
-       // Should never happen, but just in case
-       if (chr != '[' && chr != '{') return;
-       // Get the type of scope, this is important to detect errors in the command syntax
-       ScopeType type = chr == '[' ? ScopeType.BRACKET : ScopeType.BRACE;
-       // Add the element to the stack
-       this.scopeStack.push(new StackElement(type, this.getSymbol(this.symbols.get(currentLine).size() - 1)));
+    private static boolean isBlank(String text, int start, int end){
+        for (int i = start; i < end; i++){
+            if (!Character.isWhitespace(text.charAt(i))) return false;
+        }
+        return true;
     }
 
-    private void popElemFromStack(char chr){
-        // Should never happen, but just in case
-        if (chr != ']' && chr != '}') return;
+    private void matchScopes(){
+        this.scopeDepth = 0;
+        for (int symbol = 0; symbol < this.symbols.count; symbol++){
+            this.symbols.setFlag(symbol, SymbolTable.ERROR, false);
+            this.symbols.siblings[symbol] = -1;
+            this.symbols.depths[symbol] = this.scopeDepth;
+            char chr = this.symbols.scopeSymbols[symbol];
+            if (chr == '[' || chr == '{') this.addElemToStack(symbol);
+            else if (chr == ']' || chr == '}') this.popElemFromStack(chr, symbol);
+        }
+    }
+
+    private void addElemToStack(int symbol){
+        if (this.scopeDepth == this.scopeStack.length)
+            this.scopeStack = Arrays.copyOf(this.scopeStack, this.scopeStack.length * 2);
+        // Add the element to the stack, its scope type is the symbol that opened it
+        this.scopeStack[this.scopeDepth++] = symbol;
+    }
+
+    private void popElemFromStack(char chr, int symbol){
         // Get the type of scope, this is important to detect errors in the command syntax
         ScopeType type = chr == ']' ? ScopeType.BRACKET : ScopeType.BRACE;
-        // Get the last symbol of the stack
-        CommandParserNode symbol = this.getSymbol(this.symbols.get(currentLine).size() - 1);
         // If the stack is empty it means there was a syntax error, so it sets the scope symbol as error
-        if (scopeStack.empty()){
-            symbol.setError(true);
+        if (this.scopeDepth == 0){
+            this.symbols.setFlag(symbol, SymbolTable.ERROR, true);
             return;
         }
-        StackElement elem = scopeStack.pop();
-        // If types do not match there was a syntax error in the command, so it sets the symbols as error
-        if (elem.type() != type){
-            scopeStack.push(elem);
-            elem.relatedNode().setError(true);
-            symbol.setError(true);
+        int related = this.scopeStack[this.scopeDepth - 1];
+        ScopeType relatedType = this.symbols.scopeSymbols[related] == '[' ? ScopeType.BRACKET : ScopeType.BRACE;
+        // If types do not match there was a syntax error in the command, so it sets the symbols as error.
+        // The opening symbol stays in the stack
+        if (relatedType != type){
+            this.symbols.setFlag(related, SymbolTable.ERROR, true);
+            this.symbols.setFlag(symbol, SymbolTable.ERROR, true);
             return;
         }
-        // If everything went alright, set the nodes as sibling scopes
-        elem.relatedNode().setSibling(symbol);
-        symbol.setSibling(elem.relatedNode());
+        // If everything went alright, set the symbols as sibling scopes
+        this.scopeDepth--;
+        this.symbols.depths[symbol] = this.scopeDepth;
+        this.symbols.siblings[related] = symbol;
+        this.symbols.siblings[symbol] = related;
     }
 
     private void generateArgs(){
-        // First pass will set independent arguments
-        for (List<CommandParserNode> lineSymbols : symbols){
-            for (CommandParserNode symbol : lineSymbols){
-                symbol.generateArgsFirstPass();
-            }
+        // First pass will set independent arguments. Symbols that were not relexed keep the result of their last pass
+        for (int symbol = 0; symbol < this.symbols.count; symbol++){
+            this.symbols.generateArgsFirstPass(symbol);
         }
         // Second pass will set arguments that depend on the first passes
-        for (List<CommandParserNode> lineSymbols : symbols){
-            for (CommandParserNode symbol : lineSymbols){
-                symbol.generateArgsSecondPass();
-            }
+        this.symbols.linkNeighbours();
+        for (int symbol = 0; symbol < this.symbols.count; symbol++){
+            this.symbols.generateArgsSecondPass(symbol);
         }
     }
 
@@ -227,65 +330,111 @@ public class CommandBlockIntellisense {
     //************************* GETTERS *************************
     //***********************************************************
 
-    public CommandParserNode getSymbol(int index){
-        return getSymbol(index, currentLine);
+    // Lines that have none of the italic scopes get the same key no matter where the cursor is
+    private int getCursorScopeKey(SymbolTable symbols, int line){
+        if (touchesLine(symbols, this.cursorScopeA, line) || touchesLine(symbols, this.cursorScopeB, line))
+            return this.cursorScopeVersion;
+        return -1;
     }
 
-    public CommandParserNode getSymbol(int index, int line){
-        if (line < 0 || line >= this.symbols.size()) return null;
-        // Negative indexes will lookup the previous lines
-        while (index < 0){
-            // Only look up a previous line if it exists
-            if (line > 1){
-                line--;
-                index = this.symbols.get(line).size() + index;
-            }
-            else return null;
-        }
-        // Indexes bigger than the max size of the line will look up next lines
-        while (index >= this.symbols.get(line).size()){
-            // But only if said line exists
-            if (line < this.symbols.size() - 1){
-                index = index - this.symbols.get(line).size();
-                line++;
-            }
-            else return null;
-        }
-        return this.symbols.get(line).get(index);
+    private static boolean touchesLine(SymbolTable symbols, int scope, int line){
+        if (scope == -1) return false;
+        int sibling = symbols.siblings[scope];
+        int lineStart = symbols.lineStarts[line];
+        int lineEnd = symbols.lineStarts[line + 1];
+        return (lineStart <= scope && scope < lineEnd) || (lineStart <= sibling && sibling < lineEnd);
+    }
+
+    private boolean isCursorScope(int symbol){
+        return symbol != -1 && (symbol == this.cursorScopeA || symbol == this.cursorScopeB);
+    }
+
+    AnalysisSnapshot getSnapshot(){
+        return this.snapshot;
+    }
+
+    public int getSymbol(int index, int line){
+        return this.snapshot.symbols().getSymbol(index, line);
     }
 
     //***********************************************************
     //************************* SETTERS *************************
     //***********************************************************
 
-    public void setCurrentLine(int line){
-        this.currentLine = line;
-    }
-
     public void setCursorPos(int line, int cursorPos){
         this.currentCursorLine = line;
         this.currentCursorPos = cursorPos;
+        this.updateCursorScopes(this.snapshot);
+    }
+
+    private void updateCursorScopes(AnalysisSnapshot snapshot){
+        // Find the scopes the cursor is on, which will be made italic together with their siblings
+        SymbolTable symbols = snapshot.symbols();
+        int line = this.currentCursorLine;
+        // Symbols don't overlap, so only the one under the cursor and the one ending right where it starts can qualify
+        int scopeA = -1;
+        int scopeB = -1;
+        if (line >= 0 && line < symbols.lineCount) {
+            int symbol = symbols.symbolAt(line, this.currentCursorPos);
+            if (symbol > symbols.lineStarts[line] && symbols.shouldBoldScope(symbol - 1, this.currentCursorPos, line))
+                scopeA = symbol - 1;
+            if (symbol != -1 && symbols.shouldBoldScope(symbol, this.currentCursorPos, line)) {
+                if (scopeA == -1) scopeA = symbol;
+                else scopeB = symbol;
+            }
+        }
+        if (scopeA != this.cursorScopeA || scopeB != this.cursorScopeB) {
+            this.cursorScopeA = scopeA;
+            this.cursorScopeB = scopeB;
+            this.cursorScopeVersion++;
+        }
+        this.cursorScopeSnapshot = snapshot;
     }
 
     //***********************************************************
     //********************** PROVIDED FUNC **********************
     //***********************************************************
 
-    public static OrderedText highlight(ParseResults<CommandSource> parse, String original, int firstCharacterIndex){
-        List<OrderedText> list = new ArrayList<>();
-        CommandBlockIntellisense intelli = CommandBlockIntellisense.getInstance();
+    public OrderedText highlight(int line, String original, int firstCharacterIndex){
+        // Read the snapshot once, the worker may publish a new one at any moment
+        AnalysisSnapshot snapshot = this.snapshot;
+        SymbolTable symbols = snapshot.symbols();
         // Error control to avoid exceptions
-        if (intelli.currentLine < 0 || intelli.currentLine >= intelli.symbols.size())
-            return OrderedText.concat(list);
-        // Obtain the relevant styled symbol and add it to the list, skipping empty ones
-        for (int i = 0; i < intelli.symbols.get(intelli.currentLine).size(); i++){
-            OrderedText symbolText = intelli.getSymbol(i).getAppropriateStyle(
-                    intelli.currentCursorLine,  // Needed to know if scopes have to be made italic
-                    intelli.currentCursorPos,   // Same as above
+        if (line < 0 || line >= symbols.lineCount)
+            return OrderedText.styledForwardsVisitedString(original, Style.EMPTY);
+        // Symbol indexes change between snapshots
+        if (snapshot != this.cursorScopeSnapshot) this.updateCursorScopes(snapshot);
+        // Nothing that affects this line changed since the last frame, so the last result can be reused
+        int scopeKey = this.getCursorScopeKey(symbols, line);
+        OrderedText cached = this.highlightCache.get(line, snapshot.version(), original, firstCharacterIndex, scopeKey);
+        if (cached != null) return cached;
+        List<OrderedText> list = new ArrayList<>();
+        int lastChar = firstCharacterIndex + original.length();
+        int covered = firstCharacterIndex;
+        // Obtain the relevant styled symbol and add it to the list, skipping empty ones. Symbols are sorted and don't
+        // overlap, so only the ones from the symbol under the first visible character onwards can be visible
+        int lineEnd = symbols.lineStarts[line + 1];
+        int firstSymbol = symbols.symbolAt(line, firstCharacterIndex);
+        for (int symbol = firstSymbol != -1 ? firstSymbol : symbols.lineStarts[line]; symbol < lineEnd; symbol++){
+            // This and every symbol after it are past the visible text
+            if (symbols.starts[symbol] >= lastChar){
+                covered = lastChar;
+                break;
+            }
+            OrderedText symbolText = symbols.getAppropriateStyle(
+                    symbol,
+                    this.isCursorScope(symbol) || this.isCursorScope(symbols.siblings[symbol]), // Italics
+                    original,                   // The symbols point into this text
                     firstCharacterIndex,        // This will prune letters that are to the left of the target string
-                    firstCharacterIndex + original.length()); // This will make sure only the necessary text is displayed
+                    lastChar);                  // This will make sure only the necessary text is displayed
             if (symbolText != null) list.add(symbolText);
+            covered = Math.max(covered, Math.min(symbols.starts[symbol] + symbols.lengths[symbol], lastChar));
         }
-        return OrderedText.concat(list);
+        // If the snapshot is older than the text, whatever was typed after it is shown unstyled until it catches up
+        if (covered < lastChar)
+            list.add(OrderedText.styledForwardsVisitedString(original.substring(covered - firstCharacterIndex), Style.EMPTY));
+        OrderedText text = OrderedText.concat(list);
+        this.highlightCache.put(line, snapshot.version(), original, firstCharacterIndex, scopeKey, text);
+        return text;
     }
 }
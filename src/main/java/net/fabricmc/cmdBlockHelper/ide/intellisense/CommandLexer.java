@@ -0,0 +1,88 @@
+package net.fabricmc.cmdBlockHelper.ide.intellisense;
+
+// Character level helper for the intellisense lexer. Every character is mapped to a class through a lookup table
+// so the symbol loop only has to branch once per character, and coordinates are recognised without the regex
+// (which was run over the whole command and then checked against every single character)
+class CommandLexer {
+    static final byte OTHER = 0;
+    static final byte SPACE = 1;
+    static final byte QUOTE = 2;
+    static final byte BREAKING = 3;
+    static final byte SCOPE_OPEN = 4;
+    static final byte SCOPE_CLOSE = 5;
+    static final byte DIGIT = 6;
+
+    private static final byte[] charClasses = new byte[128];
+
+    static {
+        charClasses[' '] = SPACE;
+        charClasses['"'] = QUOTE;
+        // Characters that create single char symbols
+        for (char chr : ",:=./".toCharArray()) charClasses[chr] = BREAKING;
+        charClasses['['] = SCOPE_OPEN;
+        charClasses['{'] = SCOPE_OPEN;
+        charClasses[']'] = SCOPE_CLOSE;
+        charClasses['}'] = SCOPE_CLOSE;
+        for (char chr = '0'; chr <= '9'; chr++) charClasses[chr] = DIGIT;
+    }
+
+    private String text;
+    private int length;
+    // For every digit, the index right after the run of digits it belongs to
+    private int[] digitRunEnds;
+
+    CommandLexer() {
+        this.text = "";
+        this.length = 0;
+        this.digitRunEnds = new int[64];
+    }
+
+    static byte classOf(char chr) {
+        return chr < 128 ? charClasses[chr] : OTHER;
+    }
+
+    void reset(String text) {
+        this.text = text;
+        this.length = text.length();
+        if (this.digitRunEnds.length < this.length) this.digitRunEnds = new int[Math.max(this.length, this.digitRunEnds.length * 2)];
+        // Walk the text backwards once so that the end of any run of digits can be looked up directly
+        int runEnd = this.length;
+        for (int i = this.length - 1; i >= 0; i--) {
+            if (classOf(text.charAt(i)) != DIGIT) runEnd = i;
+            else this.digitRunEnds[i] = runEnd;
+        }
+    }
+
+    // Returns the end of the coordinates starting at the given position, or -1 if there are none.
+    // Matches the same triples as "~", "^" or a decimal number (optionally prefixed by "~" or "^") three times,
+    // separated by single spaces. Each component is taken as long as possible, which is what the regex ended up
+    // doing anyway since a shorter component can never be followed by a space
+    int coordsEnd(int start) {
+        int end = this.componentEnd(start);
+        if (end == -1 || end >= this.length || this.text.charAt(end) != ' ') return -1;
+        end = this.componentEnd(end + 1);
+        if (end == -1 || end >= this.length || this.text.charAt(end) != ' ') return -1;
+        return this.componentEnd(end + 1);
+    }
+
+    private int componentEnd(int i) {
+        if (i >= this.length) return -1;
+        char chr = this.text.charAt(i);
+        // Relative and local coordinates may or may not have a number after them
+        if (chr == '~' || chr == '^') {
+            int end = this.numberEnd(i + 1);
+            return end == -1 ? i + 1 : end;
+        }
+        return this.numberEnd(i);
+    }
+
+    private int numberEnd(int i) {
+        if (i < this.length && this.text.charAt(i) == '-') i++;
+        if (i >= this.length || classOf(this.text.charAt(i)) != DIGIT) return -1;
+        int end = this.digitRunEnds[i];
+        // Decimals need at least one digit after the dot
+        if (end + 1 < this.length && this.text.charAt(end) == '.' && classOf(this.text.charAt(end + 1)) == DIGIT)
+            end = this.digitRunEnds[end + 1];
+        return end;
+    }
+}
@@ -0,0 +1,68 @@
+package net.fabricmc.cmdBlockHelper.ide.intellisense;
+
+import net.minecraft.text.OrderedText;
+
+import java.util.Arrays;
+
+// Remembers the styled text handed to every line on the last frame. The text field asks for the text twice per line
+// (before and after the cursor), so every line has two slots. An entry is only valid while the symbols, the visible
+// text and the scopes made italic by the cursor stay the same, which is the case for every frame the user isn't typing
+class HighlightCache {
+    private static final int SLOTS = 2;
+
+    private int[] versions;
+    private int[] firstChars;
+    private int[] scopeKeys;
+    private String[] originals;
+    private OrderedText[] texts;
+    // Slot of every line that was used last, the other one is replaced on a miss
+    private byte[] lastSlots;
+
+    HighlightCache() {
+        this.versions = new int[16 * SLOTS];
+        this.firstChars = new int[16 * SLOTS];
+        this.scopeKeys = new int[16 * SLOTS];
+        this.originals = new String[16 * SLOTS];
+        this.texts = new OrderedText[16 * SLOTS];
+        this.lastSlots = new byte[16];
+        Arrays.fill(this.versions, -1);
+    }
+
+    OrderedText get(int line, int version, String original, int firstChar, int scopeKey) {
+        if (line * SLOTS >= this.versions.length) return null;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int entry = line * SLOTS + slot;
+            if (this.versions[entry] == version && this.firstChars[entry] == firstChar &&
+                    this.scopeKeys[entry] == scopeKey && original.equals(this.originals[entry])) {
+                this.lastSlots[line] = (byte) slot;
+                return this.texts[entry];
+            }
+        }
+        return null;
+    }
+
+    void put(int line, int version, String original, int firstChar, int scopeKey, OrderedText text) {
+        this.ensureCapacity(line + 1);
+        int slot = 1 - this.lastSlots[line];
+        int entry = line * SLOTS + slot;
+        this.versions[entry] = version;
+        this.firstChars[entry] = firstChar;
+        this.scopeKeys[entry] = scopeKey;
+        this.originals[entry] = original;
+        this.texts[entry] = text;
+        this.lastSlots[line] = (byte) slot;
+    }
+
+    private void ensureCapacity(int lines) {
+        if (lines <= this.lastSlots.length) return;
+        int size = Math.max(lines, this.lastSlots.length * 2);
+        int oldEntries = this.versions.length;
+        this.versions = Arrays.copyOf(this.versions, size * SLOTS);
+        Arrays.fill(this.versions, oldEntries, this.versions.length, -1);
+        this.firstChars = Arrays.copyOf(this.firstChars, size * SLOTS);
+        this.scopeKeys = Arrays.copyOf(this.scopeKeys, size * SLOTS);
+        this.originals = Arrays.copyOf(this.originals, size * SLOTS);
+        this.texts = Arrays.copyOf(this.texts, size * SLOTS);
+        this.lastSlots = Arrays.copyOf(this.lastSlots, size);
+    }
+}
@@ -0,0 +1,385 @@
+package net.fabricmc.cmdBlockHelper.ide.intellisense;
+
+import net.minecraft.text.OrderedText;
+import net.minecraft.text.Style;
+import net.minecraft.util.Formatting;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Storage for the symbols of the command. Instead of one object per symbol every property lives in its own array
+// and a symbol is just an index into them. Symbols don't copy their text either, they point into the line they
+// belong to. The arrays only grow, so reparsing does not allocate anything per symbol.
+// Symbols are numbered globally in text order and lineStarts holds where every line begins, so the line of a symbol
+// is found with a binary search instead of being stored (and renumbered on every edit)
+class SymbolTable {
+    static final byte NO_TYPE = -1;
+    // Flags
+    static final byte ERROR = 1;
+    static final byte STRING = 2;
+    static final byte COORDS = 4;
+    static final byte CLASSIFIED = 8;
+
+    // Characters that decide the type of a symbol in the first pass, as bits so a whole symbol fits in one int
+    private static final int MARK_DOUBLE_QUOTE = 1;
+    private static final int MARK_EQUAL = 1 << 1;
+    private static final int MARK_COMMA = 1 << 2;
+    private static final int MARK_SEMICOLON = 1 << 3;
+    private static final int MARK_QUOTE = 1 << 4;
+    private static final int MARK_SCOPE = 1 << 5;
+    private static final int MARK_LIST = 1 << 6;
+    private static final int MARK_DOT = 1 << 7;
+    private static final int MARK_SLASH = 1 << 8;
+    private static final int MARK_DIGIT = 1 << 9;
+    private static final int[] charMarks = new int[128];
+    // Types given by each mark, in order of priority
+    private static final int[] markPriority = {MARK_EQUAL, MARK_COMMA, MARK_SEMICOLON, MARK_QUOTE, MARK_SCOPE,
+            MARK_LIST, MARK_DOT, MARK_SLASH, MARK_DIGIT};
+    private static final byte[] markTypes = {
+            (byte) SymbolTypes.EQUAL.ordinal(), (byte) SymbolTypes.COMMA.ordinal(), (byte) SymbolTypes.SEMICOLON.ordinal(),
+            (byte) SymbolTypes.QUOTE.ordinal(), (byte) SymbolTypes.SCOPE.ordinal(), (byte) SymbolTypes.LIST.ordinal(),
+            (byte) SymbolTypes.DOT.ordinal(), (byte) SymbolTypes.SLASH.ordinal(), (byte) SymbolTypes.NUMBER.ordinal()};
+
+    static {
+        charMarks['"'] = MARK_DOUBLE_QUOTE;
+        charMarks['='] = MARK_EQUAL;
+        charMarks[','] = MARK_COMMA;
+        charMarks[':'] = MARK_SEMICOLON;
+        charMarks['\''] = MARK_QUOTE;
+        charMarks['{'] = MARK_SCOPE;
+        charMarks['}'] = MARK_SCOPE;
+        charMarks['['] = MARK_LIST;
+        charMarks[']'] = MARK_LIST;
+        charMarks['.'] = MARK_DOT;
+        charMarks['/'] = MARK_SLASH;
+        for (char chr = '0'; chr <= '9'; chr++) charMarks[chr] = MARK_DIGIT;
+    }
+
+    private final List<String> lineTexts;
+    int count;
+    int[] starts, lengths, siblings;
+    byte[] types, firstPassTypes, flags;
+    char[] scopeSymbols;
+    // Nesting level of every scope symbol, filled by the scope matching. Siblings share the same depth
+    int[] depths;
+    // Closest non blank symbols, only valid during the second pass
+    private int[] nextSolid, prevSolid;
+    int lineCount;
+    // Index of the first symbol of every line, plus the total amount of symbols at the end
+    int[] lineStarts;
+
+    //**********************************************************
+    //************************** CORE **************************
+    //**********************************************************
+
+    SymbolTable(List<String> lineTexts) {
+        this.lineTexts = lineTexts;
+        this.starts = new int[256];
+        this.lengths = new int[256];
+        this.siblings = new int[256];
+        this.types = new byte[256];
+        this.firstPassTypes = new byte[256];
+        this.flags = new byte[256];
+        this.scopeSymbols = new char[256];
+        this.depths = new int[256];
+        this.lineStarts = new int[64];
+        this.nextSolid = new int[0];
+        this.prevSolid = new int[0];
+        this.clear();
+    }
+
+    // Trimmed copy with its own lines, so it stays valid no matter what happens to this table afterwards
+    SymbolTable copy() {
+        SymbolTable copy = new SymbolTable(List.copyOf(this.lineTexts));
+        copy.count = this.count;
+        copy.starts = Arrays.copyOf(this.starts, this.count);
+        copy.lengths = Arrays.copyOf(this.lengths, this.count);
+        copy.siblings = Arrays.copyOf(this.siblings, this.count);
+        copy.types = Arrays.copyOf(this.types, this.count);
+        copy.firstPassTypes = Arrays.copyOf(this.firstPassTypes, this.count);
+        copy.flags = Arrays.copyOf(this.flags, this.count);
+        copy.scopeSymbols = Arrays.copyOf(this.scopeSymbols, this.count);
+        copy.depths = Arrays.copyOf(this.depths, this.count);
+        copy.lineCount = this.lineCount;
+        copy.lineStarts = Arrays.copyOf(this.lineStarts, this.lineCount + 1);
+        return copy;
+    }
+
+    void clear() {
+        this.count = 0;
+        this.lineCount = 0;
+        this.lineStarts[0] = 0;
+    }
+
+    void beginLine() {
+        if (this.lineCount + 2 > this.lineStarts.length)
+            this.lineStarts = Arrays.copyOf(this.lineStarts, this.lineStarts.length * 2);
+        this.lineStarts[this.lineCount] = this.count;
+        this.lineCount++;
+        this.lineStarts[this.lineCount] = this.count;
+    }
+
+    int add(int start, int length) {
+        this.ensureCapacity(this.count + 1);
+        int symbol = this.count;
+        this.starts[symbol] = start;
+        this.lengths[symbol] = length;
+        this.siblings[symbol] = -1;
+        this.types[symbol] = NO_TYPE;
+        this.firstPassTypes[symbol] = NO_TYPE;
+        this.flags[symbol] = 0;
+        this.scopeSymbols[symbol] = 0;
+        this.count++;
+        this.lineStarts[this.lineCount] = this.count;
+        return symbol;
+    }
+
+    // Replaces the symbols of the lines [first, oldEnd) with the ones in the replacement table, which hold the lines
+    // [first, newEnd). Lines after the replaced ones are shifted accordingly
+    void replaceLines(int first, int oldEnd, int newEnd, SymbolTable replacement) {
+        int from = this.lineStarts[first];
+        int to = this.lineStarts[oldEnd];
+        int delta = replacement.count - (to - from);
+        int lineDelta = newEnd - oldEnd;
+        int tail = this.count - to;
+        this.ensureCapacity(this.count + delta);
+        // Move the symbols after the replaced lines out of the way and copy the new ones in
+        this.shift(to, delta, tail);
+        System.arraycopy(replacement.starts, 0, this.starts, from, replacement.count);
+        System.arraycopy(replacement.lengths, 0, this.lengths, from, replacement.count);
+        System.arraycopy(replacement.siblings, 0, this.siblings, from, replacement.count);
+        System.arraycopy(replacement.types, 0, this.types, from, replacement.count);
+        System.arraycopy(replacement.firstPassTypes, 0, this.firstPassTypes, from, replacement.count);
+        System.arraycopy(replacement.flags, 0, this.flags, from, replacement.count);
+        System.arraycopy(replacement.scopeSymbols, 0, this.scopeSymbols, from, replacement.count);
+        this.count += delta;
+
+        // Same for the index of the lines
+        int newLineCount = this.lineCount + lineDelta;
+        if (newLineCount + 1 > this.lineStarts.length)
+            this.lineStarts = Arrays.copyOf(this.lineStarts, Math.max(newLineCount + 1, this.lineStarts.length * 2));
+        System.arraycopy(this.lineStarts, oldEnd, this.lineStarts, newEnd, this.lineCount + 1 - oldEnd);
+        for (int i = newEnd; i <= newLineCount; i++) this.lineStarts[i] += delta;
+        for (int i = first; i < newEnd; i++) this.lineStarts[i] = from + replacement.lineStarts[i - first];
+        this.lineCount = newLineCount;
+    }
+
+    private void shift(int from, int delta, int length) {
+        if (delta == 0 || length == 0) return;
+        System.arraycopy(this.starts, from, this.starts, from + delta, length);
+        System.arraycopy(this.lengths, from, this.lengths, from + delta, length);
+        System.arraycopy(this.siblings, from, this.siblings, from + delta, length);
+        System.arraycopy(this.types, from, this.types, from + delta, length);
+        System.arraycopy(this.firstPassTypes, from, this.firstPassTypes, from + delta, length);
+        System.arraycopy(this.flags, from, this.flags, from + delta, length);
+        System.arraycopy(this.scopeSymbols, from, this.scopeSymbols, from + delta, length);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.starts.length) return;
+        int size = Math.max(capacity, this.starts.length * 2);
+        this.starts = Arrays.copyOf(this.starts, size);
+        this.lengths = Arrays.copyOf(this.lengths, size);
+        this.siblings = Arrays.copyOf(this.siblings, size);
+        this.types = Arrays.copyOf(this.types, size);
+        this.firstPassTypes = Arrays.copyOf(this.firstPassTypes, size);
+        this.flags = Arrays.copyOf(this.flags, size);
+        this.scopeSymbols = Arrays.copyOf(this.scopeSymbols, size);
+        this.depths = Arrays.copyOf(this.depths, size);
+    }
+
+    //************************************************************
+    //********************** STYLE HANDLING **********************
+    //************************************************************
+
+    void generateArgsFirstPass(int symbol) {
+        // Symbols are kept between parses when their line did not change, the first pass result can be reused
+        // but the second pass must run again since it depends on the neighbouring symbols
+        if ((this.flags[symbol] & CLASSIFIED) == 0) {
+            this.firstPassTypes[symbol] = this.classifyFirstPass(symbol);
+            this.flags[symbol] |= CLASSIFIED;
+        }
+        this.types[symbol] = this.firstPassTypes[symbol];
+    }
+
+    private byte classifyFirstPass(int symbol) {
+        // This pass will assign the appropriate argument types to the symbols so the system knows what color to apply
+        // to them. This is the first pass, so only independent arguments will be applied (that is, arguments that are not
+        // relative to other arguments
+        if (this.hasFlag(symbol, STRING))
+            return (byte) SymbolTypes.STRING.ordinal();
+        // Collect which of the relevant characters appear in the symbol in a single scan, then pick the type with the
+        // highest priority. A symbol is a number (0, 1, 101, 12b, 12f, 0f...) as soon as it has any digit
+        int marks = this.collectMarks(symbol);
+        if ((marks & MARK_DOUBLE_QUOTE) != 0)
+            return (byte) SymbolTypes.STRING.ordinal();
+        if (this.hasFlag(symbol, COORDS))
+            return (byte) SymbolTypes.COORDS.ordinal();
+        for (int i = 0; i < markPriority.length; i++) {
+            if ((marks & markPriority[i]) != 0) return markTypes[i];
+        }
+        return NO_TYPE;
+    }
+
+    private int collectMarks(int symbol) {
+        String text = this.lineTexts.get(this.lineOf(symbol));
+        int end = this.starts[symbol] + this.lengths[symbol];
+        int marks = 0;
+        for (int i = this.starts[symbol]; i < end; i++) {
+            char chr = text.charAt(i);
+            if (chr < 128) marks |= charMarks[chr];
+        }
+        return marks;
+    }
+
+    // Links every symbol to the closest non blank symbols before and after it, going across lines. Done with one sweep
+    // in each direction so the second pass doesn't have to search for them. The sweeps go line by line, so the text
+    // of each symbol is at hand without looking its line up
+    void linkNeighbours() {
+        if (this.nextSolid.length < this.count) {
+            this.nextSolid = new int[this.starts.length];
+            this.prevSolid = new int[this.starts.length];
+        }
+        int last = -1;
+        for (int line = this.lineCount - 1; line >= 0; line--) {
+            String text = this.lineTexts.get(line);
+            for (int symbol = this.lineStarts[line + 1] - 1; symbol >= this.lineStarts[line]; symbol--) {
+                this.nextSolid[symbol] = last;
+                if (!this.isBlank(text, symbol)) last = symbol;
+            }
+        }
+        last = -1;
+        for (int line = 0; line < this.lineCount; line++) {
+            String text = this.lineTexts.get(line);
+            for (int symbol = this.lineStarts[line]; symbol < this.lineStarts[line + 1]; symbol++) {
+                this.prevSolid[symbol] = last;
+                if (!this.isBlank(text, symbol)) last = symbol;
+            }
+        }
+    }
+
+    void generateArgsSecondPass(int symbol) {
+        if (this.types[symbol] != NO_TYPE) return;
+        // This pass will find the arguments that are to the left of an equal sign or a semicolon and apply a special
+        // argument to it
+        int next = this.nextSolid[symbol];
+        if (next != -1) {
+            if (this.types[next] == SymbolTypes.EQUAL.ordinal()) {
+                this.types[symbol] = (byte) SymbolTypes.LEFT_EQUAL.ordinal();
+                return;
+            }
+            if (this.types[next] == SymbolTypes.SEMICOLON.ordinal()) {
+                this.types[symbol] = (byte) SymbolTypes.LEFT_SEMICOLON.ordinal();
+                return;
+            }
+        }
+
+        // Do the same for the elements to the right of an equal sign or a semicolon
+        int prev = this.prevSolid[symbol];
+        if (prev != -1) {
+            if (this.types[prev] == SymbolTypes.EQUAL.ordinal()) {
+                this.types[symbol] = (byte) SymbolTypes.RIGHT_EQUAL.ordinal();
+                return;
+            }
+            if (this.types[prev] == SymbolTypes.SEMICOLON.ordinal()) {
+                this.types[symbol] = (byte) SymbolTypes.RIGHT_SEMICOLON.ordinal();
+                return;
+            }
+        }
+        // If no argument has been found at all, it's flagged as a normal symbol
+        this.types[symbol] = (byte) SymbolTypes.NORMAL.ordinal();
+    }
+
+    boolean shouldBoldScope(int symbol, int cursor, int line){
+        // If the mouse is on the specific spot needed and the symbol is a scope
+        return  this.lineStarts[line] <= symbol && symbol < this.lineStarts[line + 1] &&
+                this.starts[symbol] <= cursor &&
+                cursor <= this.starts[symbol] + this.lengths[symbol] &&
+                (this.types[symbol] == SymbolTypes.LIST.ordinal() || this.types[symbol] == SymbolTypes.SCOPE.ordinal());
+    }
+
+    //***********************************************************
+    //************************* GETTERS *************************
+    //***********************************************************
+
+    // The original string is the part of the line being rendered, which starts at firstChar and ends at lastChar
+    OrderedText getAppropriateStyle(int symbol, boolean italic, String original, int firstChar, int lastChar) {
+        int symbolStart = this.starts[symbol];
+        int symbolEnd = symbolStart + this.lengths[symbol];
+
+        // If the beginning of the symbol is after the last needed char of the string, skip
+        // If the last character of the symbol is before the first needed char of the string, also skip
+        if (symbolEnd <= firstChar || lastChar <= symbolStart) return null;
+        // Otherwise get the appropriate part of the symbol to print
+        String text = original.substring(Math.max(symbolStart, firstChar) - firstChar, Math.min(symbolEnd, lastChar) - firstChar);
+        // Apply the correct color depending on what argument type is attached to the symbol
+        // or, if the error flag is activated, set the color to red
+        // Scope symbols are colored by how deep they are so matching pairs are easier to spot
+        Style style;
+        if (this.hasFlag(symbol, ERROR)) style = Style.EMPTY.withColor(Formatting.RED);
+        else if (this.scopeSymbols[symbol] != 0) style = SymbolTypes.scopeDepthStyles[this.depths[symbol] % SymbolTypes.scopeDepthStyles.length];
+        else style = SymbolTypes.byOrdinal[this.types[symbol]].style;
+        // If it's a scope and the mouse is on it or on the related scope symbol, add italics
+        if (italic) style = style.withItalic(true);
+        return OrderedText.styledForwardsVisitedString(text, style);
+    }
+
+    // Symbols are addressed relative to the start of a line. Indexes out of the line keep counting into the previous
+    // or next lines, which is just an offset on the global index
+    int getSymbol(int index, int line){
+        if (line < 0 || line >= this.lineCount) return -1;
+        int symbol = this.lineStarts[line] + index;
+        return symbol < 0 || symbol >= this.count ? -1 : symbol;
+    }
+
+    // Last symbol of the line that starts at or before the given position, or -1 if there is none
+    int symbolAt(int line, int pos) {
+        int low = this.lineStarts[line];
+        int high = this.lineStarts[line + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (this.starts[mid] <= pos) low = mid + 1;
+            else high = mid - 1;
+        }
+        return high >= this.lineStarts[line] ? high : -1;
+    }
+
+    int lineOf(int symbol) {
+        // Last line starting at or before the symbol. Empty lines share their start with the next one, so keep
+        // looking to the right until the line actually contains it
+        int low = 0;
+        int high = this.lineCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (this.lineStarts[mid] <= symbol) low = mid;
+            else high = mid - 1;
+        }
+        return low;
+    }
+
+    int getLineSize(int line) {
+        return this.lineStarts[line + 1] - this.lineStarts[line];
+    }
+
+    boolean hasFlag(int symbol, byte flag) {
+        return (this.flags[symbol] & flag) != 0;
+    }
+
+    // Text is the line the symbol is in
+    private boolean isBlank(String text, int symbol) {
+        int end = this.starts[symbol] + this.lengths[symbol];
+        for (int i = this.starts[symbol]; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    //***********************************************************
+    //************************* SETTERS *************************
+    //***********************************************************
+
+    void setFlag(int symbol, byte flag, boolean value) {
+        if (value) this.flags[symbol] |= flag;
+        else this.flags[symbol] &= (byte) ~flag;
+    }
+}
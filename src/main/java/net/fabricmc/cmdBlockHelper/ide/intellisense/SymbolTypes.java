@@ -0,0 +1,40 @@
+package net.fabricmc.cmdBlockHelper.ide.intellisense;
+
+import net.minecraft.text.Style;
+import net.minecraft.util.Formatting;
+
+enum SymbolTypes {
+    // Each symbol type has an associated color for the formatter
+    NORMAL(Style.EMPTY.withColor(Formatting.WHITE)),
+    STRING(Style.EMPTY.withColor(Formatting.GREEN)),
+    EQUAL(Style.EMPTY.withColor(Formatting.YELLOW)),
+    LEFT_EQUAL(Style.EMPTY.withColor(Formatting.GOLD)),
+    RIGHT_EQUAL(Style.EMPTY.withColor(Formatting.LIGHT_PURPLE)),
+    SEMICOLON(Style.EMPTY.withColor(Formatting.YELLOW)),
+    LEFT_SEMICOLON(Style.EMPTY.withColor(Formatting.GOLD)),
+    RIGHT_SEMICOLON(Style.EMPTY.withColor(Formatting.LIGHT_PURPLE)),
+    COMMA(Style.EMPTY.withColor(Formatting.GRAY)),
+    SCOPE(Style.EMPTY.withColor(Formatting.BLUE)),
+    LIST(Style.EMPTY.withColor(Formatting.DARK_AQUA)),
+    QUOTE(Style.EMPTY.withColor(Formatting.GREEN)),
+    NUMBER(Style.EMPTY.withColor(Formatting.AQUA)),
+    DOT(Style.EMPTY.withColor(Formatting.YELLOW)),
+    SLASH(Style.EMPTY.withColor(Formatting.DARK_GRAY)),
+    COORDS(Style.EMPTY.withColor(Formatting.DARK_PURPLE));
+
+    // Colors of scope symbols, cycling with their nesting depth
+    static final Style[] scopeDepthStyles = {
+            Style.EMPTY.withColor(Formatting.BLUE),
+            Style.EMPTY.withColor(Formatting.DARK_AQUA),
+            Style.EMPTY.withColor(Formatting.DARK_GREEN),
+            Style.EMPTY.withColor(Formatting.DARK_PURPLE)
+    };
+
+    // values() copies the array on every call, symbols store the ordinal and look it up here
+    static final SymbolTypes[] byOrdinal = values();
+
+    public final Style style;
+    SymbolTypes(Style style){
+        this.style = style;
+    }
+}
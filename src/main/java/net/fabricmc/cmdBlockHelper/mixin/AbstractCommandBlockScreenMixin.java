@@ -1,5 +1,6 @@
 package net.fabricmc.cmdBlockHelper.mixin;
 import net.fabricmc.cmdBlockHelper.ide.CmdScreen;
+import net.fabricmc.cmdBlockHelper.ide.MonoTextRenderer;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.screen.ingame.AbstractCommandBlockScreen;
 import net.minecraft.client.gui.widget.ButtonWidget;
@@ -28,5 +29,7 @@ public abstract class AbstractCommandBlockScreenMixin extends Screen {
                     this.client.setScreen(new CmdScreen(target));
                 }
         ).dimensions(this.width / 2 + 160, 50, 26, 20).build());
+        // The player might be about to open the IDE, get its font ready in the background
+        MonoTextRenderer.prewarm();
     }
 }
@@ -12,4 +12,7 @@ public interface TextFieldWidgetAccessor {
 
     @Accessor("firstCharacterIndex")
     void firstCharacterIndexSetter(int firstCharacterIndex);
+
+    @Accessor("selectionEnd")
+    void selectionEndSetter(int selectionEnd);
 }
@@ -0,0 +1,47 @@
+package net.fabricmc.cmdBlockHelper.ide;
+
+import net.fabricmc.cmdBlockHelper.ide.intellisense.CommandBlockIntellisense;
+
+import java.util.List;
+import java.util.Random;
+
+// Times what a big Ctrl + V goes through before the next frame can draw it: making the text inline, formatting it,
+// putting the lines in the buffer, counting the characters and relexing. The line widgets are left out since they
+// need the game running. Not a test, run the main method by hand
+public class BulkPasteBenchmark {
+    private static final int rounds = 30;
+
+    // A summon one-liner with a passenger list long enough to reach the given length
+    private static String command(int length) {
+        Random random = new Random(1);
+        StringBuilder command = new StringBuilder("summon armor_stand ~ ~1 ~ {Tags:[\"a\"],Passengers:[");
+        while (command.length() < length) {
+            command.append("{id:\"minecraft:falling_block\",BlockState:{Name:\"stone\"},Time:1,CustomName:'{\"text\":\"x")
+                    .append(random.nextInt(100)).append("\",\"color\":\"red\"}',Motion:[0.0d,0.1d,0.0d]},");
+        }
+        command.setLength(command.length() - 1);
+        return command.append("]}").toString();
+    }
+
+    public static void main(String[] args) {
+        String command = command(30000);
+        long best = Long.MAX_VALUE;
+        List<String> lines = List.of();
+        for (int round = 0; round < rounds; round++) {
+            // Same as an empty editor
+            TextBuffer buffer = new TextBuffer();
+            InlineLengthTracker lengthTracker = new InlineLengthTracker();
+            CommandBlockIntellisense intellisense = new CommandBlockIntellisense("", Runnable::run);
+            long start = System.nanoTime();
+            // What TextEditor.processPaste does for a long paste at the start of the first line
+            String[] pasted = CommandFormatter.format(CommandFormatter.makeInline(command)).split("\n", -1);
+            buffer.replaceLines(0, 1, List.of(pasted));
+            // And what the next flushLines does with it
+            lines = buffer.getLines();
+            lengthTracker.update(lines);
+            intellisense.refresh(true, lines, 0, 0);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("Paste of %d chars: %d lines in %.1fms%n", command.length(), lines.size(), best / 1000000.0);
+    }
+}
@@ -0,0 +1,167 @@
+package net.fabricmc.cmdBlockHelper.ide;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// How commands look once opened in the editor. Everything but the string placeholder cases is exactly what the
+// replaceAll chain gave before the formatter replaced it
+class CommandFormatterTest {
+    // Same as TextEditor.autoFormat
+    private static String format(String command) {
+        return CommandFormatter.format(CommandFormatter.makeInline(command));
+    }
+
+    private static String lines(String... lines) {
+        return String.join("\n", lines);
+    }
+
+    @Test
+    void plainCommands() {
+        assertEquals("say hello world", format("say hello world"));
+        assertEquals("", format(""));
+        assertEquals("a = b", format("a=b"));
+        // Long commands are broken into lines of about sixty characters, at the spaces
+        assertEquals(lines(
+                "execute if block ~ ~ ~ minecraft:stone run say hello there this ",
+                "is a rather long message that goes past sixty characters for ",
+                "sure"), format("execute if block ~ ~ ~ minecraft:stone run say hello there this is a rather long message that goes past sixty characters for sure"));
+    }
+
+    @Test
+    void coordinates() {
+        assertEquals("tp @s ~ ~1 ~", format("tp @s ~ ~1 ~"));
+        assertEquals("fill ~-5 ~-1 ~-5 ~5 ~-1 ~5 stone", format("fill ~-5 ~-1 ~-5 ~5 ~-1 ~5 stone"));
+        assertEquals(lines(
+                "summon armor_stand ^ ^ ^1 ",
+                "{",
+                "  Invisible:1b,",
+                "  Marker:1b",
+                "}"), format("summon armor_stand ^ ^ ^1 {Invisible:1b,Marker:1b}"));
+    }
+
+    @Test
+    void scopes() {
+        assertEquals(lines("{", "  ", "}"), format("{}"));
+        assertEquals(lines("[", "  ", "]"), format("[]"));
+        assertEquals(lines(
+                "give @p diamond_sword",
+                "{",
+                "  Enchantments:",
+                "  [",
+                "    {",
+                "      id:\"minecraft:sharpness\",",
+                "      lvl:5s",
+                "    }",
+                "  ]",
+                "}",
+                " 1"), format("give @p diamond_sword{Enchantments:[{id:\"minecraft:sharpness\",lvl:5s}]} 1"));
+        assertEquals(lines(
+                "execute as @a",
+                "[",
+                "  tag = x,",
+                "  scores = ",
+                "  {",
+                "    s = 1..",
+                "  }",
+                "]",
+                " at @s run tp @s ~ ~10 ~ 90 0"), format("execute as @a[tag=x,scores={s=1..}] at @s run tp @s ~ ~10 ~ 90 0"));
+        assertEquals(lines(
+                "say",
+                "{",
+                "  a:",
+                "  [",
+                "    1,",
+                "    2",
+                "  ]",
+                "}",
+                " ",
+                "{",
+                "  b:3",
+                "}"), format("say {a:[1,2]}  {b:3}"));
+    }
+
+    @Test
+    void strings() {
+        assertEquals(lines(
+                "data merge block ~ ~ ~ ",
+                "{",
+                "  Text1:",
+                "  '{",
+                "    \"text\":\"x\"",
+                "  }'",
+                "}"), format("data merge block ~ ~ ~ {Text1:'{\"text\":\"x\"}'}"));
+        assertEquals(lines(
+                "setblock 1 2 3 chest",
+                "{",
+                "  Items:",
+                "  [",
+                "    {",
+                "      Slot:0b,",
+                "      id:\"stone\",",
+                "      Count:64b",
+                "    }",
+                "  ]",
+                "}",
+                " replace"), format("setblock 1 2 3 chest{Items:[{Slot:0b,id:\"stone\",Count:64b}]} replace"));
+        // Nothing after a quote that is never closed is split into lines
+        assertEquals("\"unterminated{a:1}", format("\"unterminated {a:1}"));
+    }
+
+    @Test
+    void stringPlaceholders() {
+        // Empty strings used to be mistaken for the placeholders the literals are swapped for, which moved every
+        // literal after them one place over
+        assertEquals(lines(
+                "tellraw @a",
+                "[",
+                "  \"\",",
+                "  {",
+                "    \"text\":\"a \\\"quoted\\\" b\",",
+                "    \"bold\":true",
+                "  },",
+                "  {",
+                "    \"text\":\"x\"",
+                "  }",
+                "]"), format("tellraw @a [\"\",{\"text\":\"a \\\"quoted\\\" b\",\"bold\":true},{\"text\":\"x\"}]"));
+        assertEquals(lines(
+                "say",
+                "{",
+                "  a:\"\",",
+                "  b:\"x\"",
+                "}"), format("say {a:\"\",b:\"x\"}"));
+        // Same for strings right next to each other
+        assertEquals(lines(
+                "tellraw @a",
+                "[",
+                "  \"a\"\"b\",",
+                "  {",
+                "    \"text\":\"\"",
+                "  }",
+                "]"), format("tellraw @a [\"a\"\"b\",{\"text\":\"\"}]"));
+        // Literals were put back with replaceFirst, which read $ and \ as part of the replacement
+        assertEquals(lines(
+                "say",
+                "{",
+                "  a:\"$1 and \\\\$2\",",
+                "  b:\"c\"",
+                "}"), format("say {a:\"$1 and \\\\$2\",b:\"c\"}"));
+    }
+
+    @Test
+    void makeInline() {
+        // Same output as the regex version had
+        assertEquals("say{a:[1,2]} {b:3}", CommandFormatter.makeInline("say {a:[1,2]}  {b:3}"));
+        assertEquals("execute as @a[tag=x] run say hi", CommandFormatter.makeInline("execute as @a [ tag = x ]\n  run say hi\n"));
+        assertEquals("say hi", CommandFormatter.makeInline("   say   hi   \n"));
+        assertEquals("summon zombie ~ ~ ~ {Tags:[\"one\",\"two\"],Health:20.0f}",
+                CommandFormatter.makeInline("summon zombie ~ ~ ~ {\n  Tags:[\n    \"one\",\n    \"two\"\n  ],\n  Health:20.0f\n}\n"));
+        // Spaces inside strings are kept
+        assertEquals("say{a: \"x  y\"}", CommandFormatter.makeInline("say {\n  a: \"x  y\"\n}\n"));
+        assertEquals("give @p stick{display:{Name:'{\"text\":\"A  B\"}'}} 1",
+                CommandFormatter.makeInline("give @p stick{display:{Name:'{\"text\":\"A  B\"}'}} 1\n"));
+        // Formatting and making inline again gives back the same command
+        String command = "give @p diamond_sword{Enchantments:[{id:\"minecraft:sharpness\",lvl:5s}]} 1";
+        assertEquals(command, CommandFormatter.makeInline(format(command)));
+    }
+}
@@ -0,0 +1,69 @@
+package net.fabricmc.cmdBlockHelper.ide;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The tracker must always count exactly the characters makeInline gives for the same lines, no matter in which
+// order the lines were edited
+class InlineLengthTrackerTest {
+    private static final String characters = "ab  \t{}[]=,\"\\:~1Z";
+
+    // The text the editor stores for the lines, every one of them followed by a newline
+    private static int inlineLength(List<String> lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) text.append(line).append('\n');
+        return CommandFormatter.makeInline(text.toString()).length();
+    }
+
+    private static String randomLine(Random random) {
+        StringBuilder line = new StringBuilder();
+        int length = random.nextInt(8);
+        for (int i = 0; i < length; i++) line.append(characters.charAt(random.nextInt(characters.length())));
+        return line.toString();
+    }
+
+    @Test
+    void commands() {
+        List<String> commands = List.of(
+                "say hello world",
+                "say {\n  a: \"x  y\"\n}",
+                "execute as @a [ tag = x ]\n  run say hi",
+                "summon zombie ~ ~ ~ {\n  Tags:[\n    \"one\",\n    \"two\"\n  ],\n  Health:20.0f\n}",
+                "tellraw @a {\"text\":\"Hello, \\\"friend\\\"\",\n\"color\":\"gold\"}",
+                "say \"unclosed  string\n  that goes on",
+                "");
+        for (String command : commands) {
+            List<String> lines = List.of(command.split("\n", -1));
+            assertEquals(inlineLength(lines), new InlineLengthTracker().update(lines), command);
+        }
+    }
+
+    @Test
+    void edits() {
+        // Lines are added, removed and typed into one at a time, like in the editor
+        for (int seed = 0; seed < 500; seed++) {
+            Random random = new Random(seed);
+            InlineLengthTracker tracker = new InlineLengthTracker();
+            List<String> lines = new ArrayList<>();
+            for (int step = 0; step < 30; step++) {
+                int edit = random.nextInt(4);
+                if (edit == 0 || lines.isEmpty()) lines.add(random.nextInt(lines.size() + 1), randomLine(random));
+                else if (edit == 1) lines.remove(random.nextInt(lines.size()));
+                else {
+                    int line = random.nextInt(lines.size());
+                    String text = lines.get(line);
+                    int pos = random.nextInt(text.length() + 1);
+                    char chr = characters.charAt(random.nextInt(characters.length()));
+                    lines.set(line, text.substring(0, pos) + chr + text.substring(pos));
+                }
+                List<String> snapshot = List.copyOf(lines);
+                assertEquals(inlineLength(snapshot), tracker.update(snapshot), "seed " + seed + ", step " + step);
+            }
+        }
+    }
+}
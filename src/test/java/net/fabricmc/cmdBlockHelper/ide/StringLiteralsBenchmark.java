@@ -0,0 +1,57 @@
+package net.fabricmc.cmdBlockHelper.ide;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Compares the scanner with the regex it replaced, on tellraw commands holding one long escaped JSON text literal.
+// Not a test, run the main method by hand. Times are the best of several rounds so the JIT has warmed up
+public class StringLiteralsBenchmark {
+    // The old RegularExpressions.strings
+    private static final Pattern regex = Pattern.compile("([\"])(?:(?=(\\\\?))\\2.)*?\\1");
+    private static final int rounds = 20;
+    private static final int runs = 200;
+
+    private static String command(int length) {
+        StringBuilder command = new StringBuilder("tellraw @a {\"text\":\"");
+        while (command.length() < length) command.append("{\\\"color\\\":\\\"red\\\",\\\"bold\\\":true} ");
+        return command.append("\"}").toString();
+    }
+
+    private static int countRegex(String command) {
+        int count = 0;
+        Matcher matcher = regex.matcher(command);
+        while (matcher.find()) count++;
+        return count;
+    }
+
+    private static int countScanner(String command) {
+        return StringLiterals.findSpans(command).length / 2;
+    }
+
+    // Best time of a single call in microseconds. A StackOverflowError from the regex is reported as -1
+    private static double time(String command, boolean useRegex) {
+        long best = Long.MAX_VALUE;
+        try {
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                for (int run = 0; run < runs; run++) {
+                    if (useRegex) countRegex(command);
+                    else countScanner(command);
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+        } catch (StackOverflowError e) {
+            return -1;
+        }
+        return best / (runs * 1000.0);
+    }
+
+    public static void main(String[] args) {
+        for (int length : new int[]{1000, 20000, 100000}) {
+            String command = command(length);
+            // Both have to find the same literals for the times to mean anything
+            if (countRegex(command) != countScanner(command)) throw new IllegalStateException("Different literals at " + length);
+            System.out.printf("%d chars: regex %.1fus, scanner %.1fus%n", length, time(command, true), time(command, false));
+        }
+    }
+}
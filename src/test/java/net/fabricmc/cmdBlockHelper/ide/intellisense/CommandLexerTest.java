@@ -0,0 +1,99 @@
+package net.fabricmc.cmdBlockHelper.ide.intellisense;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The symbols every line is split into. The expected streams are the ones the regex based lexer gave before it was
+// replaced, so any difference here is a change in what the intellisense sees
+class CommandLexerTest {
+    // Text of every symbol, line by line
+    private static List<List<String>> tokens(String command) {
+        SymbolTable symbols = new CommandBlockIntellisense(command, Runnable::run).getSnapshot().symbols();
+        String[] lines = command.split("\n", -1);
+        List<List<String>> tokens = new ArrayList<>();
+        for (int line = 0; line < symbols.lineCount; line++) {
+            List<String> lineTokens = new ArrayList<>();
+            for (int symbol = symbols.lineStarts[line]; symbol < symbols.lineStarts[line + 1]; symbol++) {
+                int start = symbols.starts[symbol];
+                lineTokens.add(lines[line].substring(start, start + symbols.lengths[symbol]));
+            }
+            tokens.add(lineTokens);
+        }
+        return tokens;
+    }
+
+    @Test
+    void words() {
+        assertEquals(List.of(List.of("say", " hello", " world")), tokens("say hello world"));
+        assertEquals(List.of(List.of("function", " ns", ":", "path", "/", "to", "/", "fn")), tokens("function ns:path/to/fn"));
+    }
+
+    @Test
+    void coordinates() {
+        assertEquals(List.of(List.of("tp", " @s", " ~ ~1 ~")), tokens("tp @s ~ ~1 ~"));
+        assertEquals(List.of(List.of("tp", " @s", " ^ ^ ^0.5")), tokens("tp @s ^ ^ ^0.5"));
+        assertEquals(List.of(List.of("setblock", " 10 -64 3.5", " minecraft", ":", "stone")),
+                tokens("setblock 10 -64 3.5 minecraft:stone"));
+        assertEquals(List.of(List.of("fill", " ~-1 ~ ~-1", " ~1 ~2 ~1", " air", " replace")),
+                tokens("fill ~-1 ~ ~-1 ~1 ~2 ~1 air replace"));
+    }
+
+    @Test
+    void numbersOutsideCoordinates() {
+        // Numbers that are not part of a triple are split at the dots like any other word
+        assertEquals(List.of(List.of("execute", " as", " @a", "[", "scores", "=", "{", "kills", "=", "1", ".", ".", "}", "]",
+                        " at", " @s", " run", " particle", " flame", " ~ ~1 ~", " 0.1 0.1 0.1", " 0", ".", "05", " 10")),
+                tokens("execute as @a[scores={kills=1..}] at @s run particle flame ~ ~1 ~ 0.1 0.1 0.1 0.05 10"));
+        assertEquals(List.of(List.of("scoreboard", " players", " set", " @s", " count", " 1", ".", "5e3")),
+                tokens("scoreboard players set @s count 1.5e3"));
+    }
+
+    @Test
+    void strings() {
+        assertEquals(List.of(List.of("tellraw", " @a", " {", "\"text\"", ":", "\"Hello, \\\"friend\\\"\"", ",", "\"color\"", ":", "\"gold\"", "}")),
+                tokens("tellraw @a {\"text\":\"Hello, \\\"friend\\\"\",\"color\":\"gold\"}"));
+        // Single quotes are symbols of their own, the JSON inside them is split as usual
+        assertEquals(List.of(List.of("data", " merge", " block", " ~ ~ ~", " {", "Text1", ":", "'", "{", "\"text\"", ":", "\"x\"", "}", "'", "}")),
+                tokens("data merge block ~ ~ ~ {Text1:'{\"text\":\"x\"}'}"));
+        // A string that is never closed takes the rest of the command, lines included
+        assertEquals(List.of(List.of("say", " \"unclosed string"), List.of("that goes on")),
+                tokens("say \"unclosed string\nthat goes on"));
+    }
+
+    @Test
+    void scopes() {
+        assertEquals(List.of(List.of("give", " @p", " diamond_sword", "{", "Enchantments", ":", "[", "{", "id", ":",
+                        "\"minecraft:sharpness\"", ",", "lvl", ":", "5s", "}", "]", "}", " 1")),
+                tokens("give @p diamond_sword{Enchantments:[{id:\"minecraft:sharpness\",lvl:5s}]} 1"));
+        assertEquals(List.of(List.of("say", " {", "a", ":", "[", "1", ",", "2", "}")), tokens("say {a:[1,2}"));
+        assertEquals(List.of(
+                        List.of("summon", " zombie", " ~ ~ ~", " {"),
+                        List.of("  Tags", ":", "["),
+                        List.of("    \"one\"", ","),
+                        List.of("    \"two\""),
+                        List.of("  ]", ","),
+                        List.of("  Health", ":", "20", ".", "0f"),
+                        List.of("}")),
+                tokens("summon zombie ~ ~ ~ {\n  Tags:[\n    \"one\",\n    \"two\"\n  ],\n  Health:20.0f\n}"));
+    }
+
+    @Test
+    void coordsEnd() {
+        CommandLexer lexer = new CommandLexer();
+        lexer.reset("~ ~1 ~-2.5 x");
+        assertEquals(10, lexer.coordsEnd(0));
+        // From the second component on there are only two numbers before the word
+        assertEquals(-1, lexer.coordsEnd(2));
+        lexer.reset("1 2");
+        assertEquals(-1, lexer.coordsEnd(0));
+        // Decimals need a digit after the dot
+        lexer.reset("1. 2 3");
+        assertEquals(-1, lexer.coordsEnd(0));
+        lexer.reset("-1 ^ 30.25");
+        assertEquals(10, lexer.coordsEnd(0));
+    }
+}
@@ -0,0 +1,79 @@
+package net.fabricmc.cmdBlockHelper.ide.intellisense;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The type every symbol ends up with after both classifier passes. The expected types are the ones the String.contains
+// and regex based classifier gave before the char marks replaced it, quirks included
+class SymbolTableTest {
+    // Every symbol of the command without its leading spaces, followed by its type
+    private static List<String> types(String command) {
+        SymbolTable symbols = new CommandBlockIntellisense(command, Runnable::run).getSnapshot().symbols();
+        String[] lines = command.split("\n", -1);
+        List<String> types = new ArrayList<>();
+        for (int line = 0; line < symbols.lineCount; line++) {
+            for (int symbol = symbols.lineStarts[line]; symbol < symbols.lineStarts[line + 1]; symbol++) {
+                int start = symbols.starts[symbol];
+                String text = lines[line].substring(start, start + symbols.lengths[symbol]).strip();
+                types.add(text + " " + SymbolTypes.byOrdinal[symbols.types[symbol]].name());
+            }
+        }
+        return types;
+    }
+
+    @Test
+    void words() {
+        assertEquals(List.of("effect NORMAL", "give NORMAL", "@s NORMAL", "speed NORMAL", "10 NUMBER", "1 NUMBER", "true NORMAL"),
+                types("effect give @s speed 10 1 true"));
+        assertEquals(List.of("function NORMAL", "ns LEFT_SEMICOLON", ": SEMICOLON", "path RIGHT_SEMICOLON", "/ SLASH",
+                "to NORMAL", "/ SLASH", "fn NORMAL"), types("function ns:path/to/fn"));
+    }
+
+    @Test
+    void numbers() {
+        // Any digit makes a number, whatever the rest of the symbol is
+        assertEquals(List.of("say NORMAL", "-5 NUMBER", "3l NUMBER", "7B NUMBER", "12x NUMBER", "abc1 NUMBER", "a NORMAL",
+                ". DOT", "b NORMAL", "x NORMAL", "/ SLASH", "y NORMAL", "'q' QUOTE", " NORMAL"),
+                types("say -5 3l 7B 12x abc1 a.b x/y 'q' "));
+        assertEquals(List.of("scoreboard NORMAL", "players NORMAL", "set NORMAL", "@s NORMAL", "count NORMAL", "1 NUMBER",
+                ". DOT", "5e3 NUMBER"), types("scoreboard players set @s count 1.5e3"));
+    }
+
+    @Test
+    void coordinates() {
+        assertEquals(List.of("setblock NORMAL", "10 -64 3.5 COORDS", "minecraft LEFT_SEMICOLON", ": SEMICOLON", "stone RIGHT_SEMICOLON"),
+                types("setblock 10 -64 3.5 minecraft:stone"));
+        assertEquals(List.of("fill NORMAL", "~-1 ~ ~-1 COORDS", "~1 ~2 ~1 COORDS", "air NORMAL", "replace NORMAL"),
+                types("fill ~-1 ~ ~-1 ~1 ~2 ~1 air replace"));
+    }
+
+    @Test
+    void keysAndValues() {
+        assertEquals(List.of("execute NORMAL", "as NORMAL", "@a NORMAL", "[ LIST", "scores LEFT_EQUAL", "= EQUAL", "{ SCOPE",
+                "kills LEFT_EQUAL", "= EQUAL", "1 NUMBER", ". DOT", ". DOT", "} SCOPE", "] LIST", "at NORMAL", "@s NORMAL",
+                "run NORMAL", "say NORMAL", "hi NORMAL"), types("execute as @a[scores={kills=1..}] at @s run say hi"));
+        assertEquals(List.of("summon NORMAL", "armor_stand NORMAL", "~ ~1 ~ COORDS", "{ SCOPE", "Tags LEFT_SEMICOLON",
+                ": SEMICOLON", "[ LIST", "\"a\" STRING", ", COMMA", "\"b\" STRING", "] LIST", ", COMMA", "NoGravity LEFT_SEMICOLON",
+                ": SEMICOLON", "1b NUMBER", ", COMMA", "Rotation LEFT_SEMICOLON", ": SEMICOLON", "[ LIST", "90f NUMBER", ", COMMA",
+                "0f NUMBER", "] LIST", "} SCOPE"),
+                types("summon armor_stand ~ ~1 ~ {Tags:[\"a\",\"b\"],NoGravity:1b,Rotation:[90f,0f]}"));
+        // Separators next to each other don't make their neighbours keys or values
+        assertEquals(List.of("say NORMAL", "{ SCOPE", "x LEFT_SEMICOLON", ": SEMICOLON", "= EQUAL", ", COMMA", "= EQUAL",
+                ": SEMICOLON", "y RIGHT_SEMICOLON", "} SCOPE"), types("say {x:=,=:y}"));
+    }
+
+    @Test
+    void strings() {
+        assertEquals(List.of("tellraw NORMAL", "@a NORMAL", "{ SCOPE", "\"text\" STRING", ": SEMICOLON", "\"Hello, \\\"friend\\\"\" STRING",
+                ", COMMA", "\"color\" STRING", ": SEMICOLON", "\"gold\" STRING", "} SCOPE"),
+                types("tellraw @a {\"text\":\"Hello, \\\"friend\\\"\",\"color\":\"gold\"}"));
+        assertEquals(List.of("data NORMAL", "merge NORMAL", "block NORMAL", "~ ~ ~ COORDS", "{ SCOPE", "Text1 NUMBER", ": SEMICOLON",
+                "' QUOTE", "{ SCOPE", "\"text\" STRING", ": SEMICOLON", "\"x\" STRING", "} SCOPE", "' QUOTE", "} SCOPE"),
+                types("data merge block ~ ~ ~ {Text1:'{\"text\":\"x\"}'}"));
+        assertEquals(List.of("say NORMAL", "\"unclosed string STRING", "that goes on STRING"), types("say \"unclosed string\nthat goes on"));
+    }
+}